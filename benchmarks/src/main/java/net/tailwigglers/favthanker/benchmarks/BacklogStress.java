@@ -0,0 +1,89 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import net.tailwigglers.favthanker.engine.ThankingEngine;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Constants;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// Clears a large notification backlog in batches and checks that the heap stays flat, e.g.
+// java -Xmx160m -cp benchmarks.jar net.tailwigglers.favthanker.benchmarks.BacklogStress
+public final class BacklogStress {
+
+    private static final int FAVORITES = Integer.getInteger("stress.favorites", 60_000);
+    private static final int USERS = Integer.getInteger("stress.users", 10);
+    private static final int MAX_BATCH = Integer.getInteger("stress.maxBatch", 200);
+    private static final int SHOUTED_EVERY = Integer.getInteger("stress.shoutedEvery", 3);
+    private static final long MAX_GROWTH_MB = Long.getLong("stress.maxGrowthMb", 16);
+
+    private static final long MB = 1024 * 1024;
+
+    // Samples the live heap after every cleared batch
+    private static class HeapSampler extends ReplayHarness.Counter {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final List<Long> samples = new ArrayList<>();
+
+        @Override
+        public void print(String text) {
+            if (text.startsWith("Cleared")) {
+                System.gc();
+                samples.add(memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+
+    private BacklogStress() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty(Constants.MAX_BATCH_FAVORITES, Integer.toString(MAX_BATCH));
+        ReplayConnection connection = new ReplayConnection(ReplayHarness.OWN_NAME, FAVORITES, USERS, SHOUTED_EVERY);
+        Model model = ReplayHarness.openModel(connection, settings);
+        model.setRateLimiter(new ReplayHarness.FixedPacing(0));
+
+        int batches = (FAVORITES + MAX_BATCH - 1) / MAX_BATCH;
+        int expectedShouts = connection.getExpectedShouts();
+        System.out.println(String.format(Locale.ROOT,
+                "Clearing %d favorites from %d users in %d batches of %d, max heap %d MB",
+                FAVORITES, USERS, batches, MAX_BATCH, Runtime.getRuntime().maxMemory() / MB));
+
+        try {
+            connection.reset();
+            HeapSampler sampler = new HeapSampler();
+            long start = System.nanoTime();
+            new ThankingEngine(model, sampler).run();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Users come back in every batch, but each is only shouted once
+            if (connection.getPending() != 0 || connection.getRemovePosts() != batches
+                    || connection.getShoutPosts() != expectedShouts || sampler.shouted != expectedShouts)
+                throw new IOException(String.format(Locale.ROOT,
+                        "Stress run went wrong: %d favorites left, %d of %d batches cleared, %d shouts posted, %d shouted",
+                        connection.getPending(), connection.getRemovePosts(), batches,
+                        connection.getShoutPosts(), sampler.shouted));
+
+            // The page shrinks with every batch, so the heap may only grow by noise
+            List<Long> samples = sampler.samples;
+            long first = samples.get(0);
+            long max = Collections.max(samples);
+            long last = samples.get(samples.size() - 1);
+            System.out.println(String.format(Locale.ROOT, "Run took:             %d ms", elapsedMillis));
+            System.out.println(String.format(Locale.ROOT, "Heap after batch 1:   %.1f MB", first / (double) MB));
+            System.out.println(String.format(Locale.ROOT, "Largest heap:         %.1f MB", max / (double) MB));
+            System.out.println(String.format(Locale.ROOT, "Heap after last batch: %.1f MB", last / (double) MB));
+            if (max - first > MAX_GROWTH_MB * MB)
+                throw new IOException(String.format(Locale.ROOT,
+                        "Heap grew by %.1f MB while clearing, more than %d MB", (max - first) / (double) MB, MAX_GROWTH_MB));
+        } finally {
+            model.persist();
+        }
+    }
+}
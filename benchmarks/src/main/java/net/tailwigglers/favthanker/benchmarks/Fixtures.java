@@ -0,0 +1,61 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+final class Fixtures {
+
+    // Directory holding recorded pages, e.g. -Dfixtures.dir=/path/to/recordings
+    private static final String FIXTURES_DIR = System.getProperty("fixtures.dir");
+
+    static final String FAVORITES_PAGE = "msg-others.html";
+    static final String USER_PAGE = "user-page.html";
+
+    private Fixtures() {
+    }
+
+    static byte[] load(String name, int entries) throws IOException {
+        // Prefer a recorded page and fall back to a generated one with the same markup
+        if (FIXTURES_DIR != null) {
+            File file = new File(FIXTURES_DIR, name);
+            if (file.exists())
+                return Files.readAllBytes(file.toPath());
+        }
+
+        String page = FAVORITES_PAGE.equals(name) ? favoritesPage(entries) : userPage(entries);
+        return page.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String user(int i) {
+        return "user_" + (i % 300);
+    }
+
+    private static String favoritesPage(int entries) {
+        StringBuilder sb = new StringBuilder("<html><body><ul class=\"message-stream\">\n");
+        for (int i = 0; i < entries; i++) {
+            sb.append("<li><div class=\"table\"><input type=\"checkbox\" name=\"favorites[]\" value=\"")
+                    .append(1_000_000 + i)
+                    .append("\"><a href=\"/user/").append(user(i).replace("_", "")).append("/\"><strong>")
+                    .append(user(i))
+                    .append("</strong></a> favorited <a href=\"/view/").append(40_000_000 + i)
+                    .append("/\"><strong>\"Artwork number ").append(i)
+                    .append("\"</strong></a> <span class=\"popup_date\" title=\"5 hours ago\">on Jan 1st</span>")
+                    .append("</div></li>\n");
+        }
+        return sb.append("</ul></body></html>\n").toString();
+    }
+
+    private static String userPage(int entries) {
+        StringBuilder sb = new StringBuilder("<html><body><div class=\"userpage-profile\">Profile text</div>\n");
+        for (int i = 0; i < entries; i++) {
+            sb.append("<div class=\"comment_container\"><a href=\"/user/").append(user(i).replace("_", ""))
+                    .append("/\"><img class=\"comment_useravatar\" src=\"//a.furaffinity.net/").append(user(i))
+                    .append(".gif\" alt=\"").append(user(i).replace("_", ""))
+                    .append("\" /></a><div class=\"comment_text\">Shout number ").append(i)
+                    .append("</div></div>\n");
+        }
+        return sb.append("</body></html>\n").toString();
+    }
+}
@@ -0,0 +1,86 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import net.tailwigglers.favthanker.util.Group;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupBenchmark {
+
+    @Param({"10"})
+    public int groupCount;
+
+    @Param({"1000"})
+    public int usersPerGroup;
+
+    private ArrayList<Group> groups;
+    private HashMap<String, Group> groupIndex;
+    private String member;
+    private String stranger;
+
+    @Setup
+    public void setUp() {
+        groups = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            ArrayList<String> users = new ArrayList<>();
+            for (int u = 0; u < usersPerGroup; u++)
+                users.add("group" + g + "_user" + u);
+            groups.add(new Group("group" + g, users, new ArrayList<>(Collections.singletonList("Thanks!"))));
+        }
+
+        // Same index Profile builds
+        groupIndex = new HashMap<>();
+        for (Group group : groups) {
+            for (String user : group.getUsers())
+                groupIndex.putIfAbsent(Group.normalizeUser(user), group);
+        }
+
+        // A member of the last group and a user that is in no group at all
+        member = "group" + (groupCount - 1) + "_user" + (usersPerGroup - 1);
+        stranger = "stranger";
+    }
+
+    @Benchmark
+    public String lookupMember() {
+        return lookup(member);
+    }
+
+    @Benchmark
+    public String lookupStranger() {
+        return lookup(stranger);
+    }
+
+    @Benchmark
+    public String indexedMember() {
+        return indexedLookup(member);
+    }
+
+    @Benchmark
+    public String indexedStranger() {
+        return indexedLookup(stranger);
+    }
+
+    private String lookup(String shoutee) {
+        // Mirrors the previous group resolution done for every shoutee in ThankingTask,
+        // a linear scan over every member list
+        return groups.stream()
+                .filter(group -> group.getUsers().stream().anyMatch(user -> user.equals(shoutee)))
+                .findFirst()
+                .map(Group::getName)
+                .orElse("None");
+    }
+
+    private String indexedLookup(String shoutee) {
+        Group group = groupIndex.get(Group.normalizeUser(shoutee));
+        return group != null ? group.getName() : "None";
+    }
+}
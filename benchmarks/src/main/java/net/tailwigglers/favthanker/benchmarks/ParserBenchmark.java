@@ -0,0 +1,80 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.Favorite;
+import net.tailwigglers.favthanker.util.FavoriteParser;
+import net.tailwigglers.favthanker.util.ShoutScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"100", "5000"})
+    public int entries;
+
+    private byte[] favoritesPage;
+    private byte[] userPage;
+    private String username;
+
+    @Setup
+    public void setUp() throws IOException {
+        favoritesPage = Fixtures.load(Fixtures.FAVORITES_PAGE, entries);
+        userPage = Fixtures.load(Fixtures.USER_PAGE, entries);
+        username = "nobody";
+    }
+
+    @Benchmark
+    public void favPattern(Blackhole bh) {
+        // Mirrors the previous whole-page extraction in ThankingTask
+        Matcher matcher = Constants.FAV_PATTERN.matcher(new String(favoritesPage, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            bh.consume(matcher.group(2));
+            bh.consume(matcher.group(4));
+            bh.consume(matcher.group(6));
+            bh.consume(matcher.group(9));
+            bh.consume(matcher.group(11));
+        }
+    }
+
+    @Benchmark
+    public void favoriteParser(Blackhole bh) throws IOException {
+        try (FavoriteParser parser = new FavoriteParser(
+                new ByteArrayInputStream(favoritesPage), StandardCharsets.UTF_8)) {
+            Favorite favorite;
+            while ((favorite = parser.next()) != null)
+                bh.consume(favorite);
+        }
+    }
+
+    @Benchmark
+    public boolean commentPattern() {
+        // Worst case for the skip check, no avatar matches so the whole page is scanned
+        Matcher matcher = Constants.COMMENT_PATTERN.matcher(new String(userPage, StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            if (matcher.group(6).equals(username.toLowerCase()))
+                return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean shoutScanner() throws IOException {
+        // Same worst case with the streaming scanner
+        try (ShoutScanner scanner = new ShoutScanner(new ByteArrayInputStream(userPage), StandardCharsets.UTF_8)) {
+            return scanner.findAuthor(Collections.singleton(username)) != null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Stands in for FA, serving the notification page, user pages and the two form posts from memory
+class ReplayConnection implements WebConnection {
+
+    private static final String MSG_OTHERS_PATH = "/msg/others/";
+    private static final String USER_PATH = "/user/";
+    private static final String SHOUT_PATH = "shout/";
+    private static final List<NameValuePair> HEADERS = Collections.singletonList(
+            new NameValuePair("Content-Type", "text/html; charset=UTF-8"));
+
+    private final String ownName;
+    private final int favorites;
+    private final int users;
+    private final int shoutedEvery;
+
+    // Favorite ID to user name, in page order
+    private final TreeMap<Integer, String> pending = new TreeMap<>();
+    private final Set<String> shouted = new HashSet<>();
+    private int shoutPosts;
+    private int removePosts;
+
+    ReplayConnection(String ownName, int favorites, int users, int shoutedEvery) {
+        this.ownName = ownName;
+        this.favorites = favorites;
+        this.users = users;
+        this.shoutedEvery = shoutedEvery;
+    }
+
+    synchronized void reset() {
+        // Every run starts from the same notifications and no new shouts
+        pending.clear();
+        for (int i = 0; i < favorites; i++)
+            pending.put(1_000_000 + i, user(i % users));
+        shouted.clear();
+        shoutPosts = 0;
+        removePosts = 0;
+    }
+
+    synchronized int getPending() {
+        return pending.size();
+    }
+
+    synchronized int getShoutPosts() {
+        return shoutPosts;
+    }
+
+    synchronized int getRemovePosts() {
+        return removePosts;
+    }
+
+    int getExpectedShouts() {
+        // Users whose page already has a shout by us are skipped
+        int expected = 0;
+        for (int i = 0; i < Math.min(users, favorites); i++) {
+            if (!hasOldShout(link(user(i))))
+                expected++;
+        }
+        return expected;
+    }
+
+    @Override
+    public synchronized WebResponse getResponse(WebRequest request) {
+        String path = request.getUrl().getPath();
+        boolean post = request.getHttpMethod() == HttpMethod.POST;
+
+        if (path.equals(MSG_OTHERS_PATH)) {
+            if (post) {
+                removePosts++;
+                for (NameValuePair parameter : request.getRequestParameters()) {
+                    if (parameter.getName().equals("favorites[]"))
+                        pending.remove(Integer.valueOf(parameter.getValue()));
+                }
+            }
+            return respond(request, 200, favoritesPage());
+        }
+
+        if (path.startsWith(USER_PATH)) {
+            String rest = path.substring(USER_PATH.length());
+            int slash = rest.indexOf('/');
+            String link = slash >= 0 ? rest.substring(0, slash) : rest;
+            if (post && rest.endsWith(SHOUT_PATH)) {
+                shoutPosts++;
+                shouted.add(link);
+            }
+            return respond(request, 200, userPage(link));
+        }
+
+        return respond(request, 404, "<html><body>Not found</body></html>");
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private boolean hasOldShout(String link) {
+        return shoutedEvery > 0 && Math.abs(link.hashCode()) % shoutedEvery == 0;
+    }
+
+    private static String user(int i) {
+        return "user_" + i;
+    }
+
+    private static String link(String user) {
+        return user.replace("_", "");
+    }
+
+    private String favoritesPage() {
+        // Same markup as the notification center, with the counter in the header
+        StringBuilder sb = new StringBuilder("<html><body><nav><a class=\"notification-container\" href=\"/msg/others/#favorites\">")
+                .append(pending.size()).append("F</a></nav>\n")
+                .append("<form method=\"post\" action=\"/msg/others/\"><ul class=\"message-stream\">\n");
+        for (Integer id : pending.keySet()) {
+            String user = pending.get(id);
+            sb.append("<li><div class=\"table\"><input type=\"checkbox\" name=\"favorites[]\" value=\"")
+                    .append(id)
+                    .append("\"><a href=\"/user/").append(link(user)).append("/\"><strong>")
+                    .append(user)
+                    .append("</strong></a> favorited <a href=\"/view/").append(40_000_000 + id)
+                    .append("/\"><strong>\"Artwork number ").append(id)
+                    .append("\"</strong></a> <span class=\"popup_date\" title=\"5 hours ago\">on Jan 1st</span>")
+                    .append("</div></li>\n");
+        }
+        return sb.append("</ul><button type=\"submit\" name=\"remove-favorites\" value=\"1\">Remove</button>")
+                .append("</form></body></html>\n").toString();
+    }
+
+    private String userPage(String link) {
+        // The logged in navigation, a search form and the shout form, like a real profile that accepts shouts
+        StringBuilder sb = new StringBuilder("<html><body><nav><a href=\"/user/").append(ownName).append("/\">")
+                .append(ownName).append("</a> <a href=\"/logout/\">Log out</a></nav>\n")
+                .append("<form method=\"get\" action=\"/search/\"><input type=\"text\" name=\"q\"></form>\n")
+                .append("<div class=\"userpage-profile\">Profile text</div>\n");
+        if (shouted.contains(link))
+            sb.append(shout(ownName, "Thanks for the favorites!"));
+        if (hasOldShout(link))
+            sb.append(shout(ownName, "An older thank you"));
+        for (int i = 0; i < 20; i++)
+            sb.append(shout("visitor" + i, "Shout number " + i));
+        return sb.append("<form method=\"post\" action=\"/user/").append(link).append("/").append(SHOUT_PATH).append("\">")
+                .append("<textarea name=\"shout\"></textarea><button type=\"submit\" name=\"submit\">Shout</button>")
+                .append("</form></body></html>\n").toString();
+    }
+
+    private static String shout(String author, String text) {
+        return "<div class=\"comment_container\"><a href=\"/user/" + author
+                + "/\"><img class=\"comment_useravatar\" src=\"//a.furaffinity.net/" + author
+                + ".gif\" alt=\"" + author + "\" /></a><div class=\"comment_text\">" + text + "</div></div>\n";
+    }
+
+    private static WebResponse respond(WebRequest request, int status, String page) {
+        byte[] body = page.getBytes(StandardCharsets.UTF_8);
+        return new WebResponse(new WebResponseData(body, status, status == 200 ? "OK" : "Not Found", HEADERS), request, 0);
+    }
+}
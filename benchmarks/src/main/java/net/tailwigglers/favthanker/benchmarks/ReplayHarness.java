@@ -0,0 +1,187 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import net.tailwigglers.favthanker.engine.EngineListener;
+import net.tailwigglers.favthanker.engine.ThankingEngine;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Activity;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.MessageTemplate;
+import net.tailwigglers.favthanker.util.RateLimiter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Runs the whole thanking pipeline against ReplayConnection, e.g.
+// java -Dreplay.runs=50 -cp benchmarks.jar net.tailwigglers.favthanker.benchmarks.ReplayHarness
+public final class ReplayHarness {
+
+    static final String OWN_NAME = "replayer";
+    private static final String REPLAY_MARKER = "replayHarness";
+
+    private static final int RUNS = Integer.getInteger("replay.runs", 50);
+    private static final int WARMUP_RUNS = Integer.getInteger("replay.warmup", 10);
+    private static final int FAVORITES = Integer.getInteger("replay.favorites", 200);
+    private static final int USERS = Integer.getInteger("replay.users", 50);
+    private static final int SHOUTED_EVERY = Integer.getInteger("replay.shoutedEvery", 3);
+    private static final long PACING_MILLIS = Long.getLong("replay.pacingMillis", 0);
+
+    // Pauses a fixed time before every request, none at all by default
+    static class FixedPacing implements RateLimiter {
+        private final long millis;
+
+        FixedPacing(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void acquireRead() throws InterruptedException {
+            pause();
+        }
+
+        @Override
+        public void acquireWrite() throws InterruptedException {
+            pause();
+        }
+
+        @Override
+        public void awaitWrite() {
+        }
+
+        @Override
+        public void record(WebResponse response, boolean write) {
+        }
+
+        private void pause() throws InterruptedException {
+            if (millis > 0)
+                Thread.sleep(millis);
+        }
+    }
+
+    static class Counter implements EngineListener {
+        int shouted;
+        int skipped;
+
+        @Override
+        public void print(String text) {
+        }
+
+        @Override
+        public void print(Activity activity, String text) {
+            if (activity == Activity.Shouted)
+                shouted++;
+            else if (activity == Activity.Skipped)
+                skipped++;
+        }
+
+        @Override
+        public void progress(double current, double max) {
+        }
+    }
+
+    private ReplayHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ReplayConnection connection = new ReplayConnection(OWN_NAME, FAVORITES, USERS, SHOUTED_EVERY);
+        Model model = openModel(connection, new Properties());
+        model.setRateLimiter(new FixedPacing(PACING_MILLIS));
+
+        int shoutees = Math.min(USERS, FAVORITES);
+        int expectedShouts = connection.getExpectedShouts();
+        System.out.println(String.format(Locale.ROOT,
+                "Replaying %d favorites from %d users (%d to shout), pacing %dms, %d warmup and %d measured runs",
+                FAVORITES, shoutees, expectedShouts, PACING_MILLIS, WARMUP_RUNS, RUNS));
+
+        try {
+            for (int i = 0; i < WARMUP_RUNS; i++)
+                run(model, connection, expectedShouts, shoutees);
+
+            // Allocation is counted on the engine thread, which does all parsing and page building
+            model.getRunMetrics().reset();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = allocatedBytes(threads, threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++)
+                run(model, connection, expectedShouts, shoutees);
+            long elapsedNanos = System.nanoTime() - start;
+            long allocated = allocatedBytes(threads, threadId) - allocatedBefore;
+
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            System.out.println(String.format(Locale.ROOT, "Runs per second:      %.2f", RUNS / seconds));
+            System.out.println(String.format(Locale.ROOT, "Mean run:             %.2f ms",
+                    TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0 / RUNS));
+            System.out.println(String.format(Locale.ROOT, "Shoutees per second:  %.1f", (long) RUNS * shoutees / seconds));
+            if (allocatedBefore >= 0)
+                System.out.println(String.format(Locale.ROOT, "Allocated per shoutee: %d bytes",
+                        allocated / ((long) RUNS * shoutees)));
+            for (String summary : model.getRunMetrics().getPhaseSummaries())
+                System.out.println(summary);
+        } finally {
+            model.persist();
+        }
+    }
+
+    static Model openModel(ReplayConnection connection, Properties settings) throws IOException {
+        Logger.getLogger("com.gargoylesoftware").setLevel(Level.OFF);
+
+        // The model keeps its files in the working folder, so never run next to real ones
+        File config = new File(Constants.CONFIG_FILENAME);
+        Properties props = new Properties();
+        if (config.exists()) {
+            try (InputStream input = new FileInputStream(config)) {
+                props.load(input);
+            }
+            if (!Boolean.parseBoolean(props.getProperty(REPLAY_MARKER)))
+                throw new IllegalStateException("Run the replay harness from an empty folder, found " + config);
+        }
+
+        // Every run should load every page, so user pages are not cached between runs
+        props.setProperty(REPLAY_MARKER, "true");
+        props.setProperty(Constants.USER_PAGE_CACHE_MINUTES, "0");
+        props.remove(Constants.MAX_BATCH_FAVORITES);
+        props.putAll(settings);
+        try (OutputStream output = new FileOutputStream(Constants.CONFIG_FILENAME)) {
+            props.store(output, "Replay harness");
+        }
+
+        Model model = new Model();
+        model.getWebClient().setWebConnection(connection);
+        model.setUsername(OWN_NAME);
+        model.setMessages(MessageTemplate.compileAll(Arrays.asList("Thanks {user} for the {favcount} favs!")));
+        return model;
+    }
+
+    private static void run(Model model, ReplayConnection connection, int expectedShouts, int shoutees) throws Exception {
+        connection.reset();
+        Counter counter = new Counter();
+        new ThankingEngine(model, counter).run();
+
+        // A run only counts if it did everything a live run would
+        if (connection.getPending() != 0 || connection.getRemovePosts() != 1 || connection.getShoutPosts() != expectedShouts
+                || counter.shouted != expectedShouts || counter.shouted + counter.skipped != shoutees)
+            throw new IOException(String.format(Locale.ROOT,
+                    "Replay went wrong: %d favorites left, %d shouts posted, %d shouted and %d skipped of %d users",
+                    connection.getPending(), connection.getShoutPosts(), counter.shouted, counter.skipped, shoutees));
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads, long threadId) {
+        // Only HotSpot style JVMs can tell
+        if (threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+        return -1;
+    }
+}
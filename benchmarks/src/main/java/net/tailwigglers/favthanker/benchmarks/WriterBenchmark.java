@@ -0,0 +1,63 @@
+package net.tailwigglers.favthanker.benchmarks;
+
+import net.tailwigglers.favthanker.util.FavWriter;
+import net.tailwigglers.favthanker.util.Favorite;
+import net.tailwigglers.favthanker.util.Rotation;
+import net.tailwigglers.favthanker.util.ShoutWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    private File directory;
+    private FavWriter favWriter;
+    private ShoutWriter shoutWriter;
+    private Favorite favorite;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("favthanker-bench").toFile();
+        favWriter = new FavWriter(new File(directory, "favorites.csv"), Rotation.NONE, null);
+        shoutWriter = new ShoutWriter(new File(directory, "shouts.csv"), Rotation.NONE, null);
+        favorite = new Favorite(
+                "1000000",
+                "user_1",
+                "https://www.furaffinity.net/user/user1/",
+                "Artwork, with \"quotes\"",
+                "https://www.furaffinity.net/view/40000000/");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        favWriter.close();
+        shoutWriter.close();
+        for (File file : directory.listFiles())
+            Files.delete(file.toPath());
+        Files.delete(directory.toPath());
+    }
+
+    @Benchmark
+    public void printFavorite() throws IOException {
+        favWriter.printFavorite(favorite, "benchmark");
+    }
+
+    @Benchmark
+    public void printShout() throws IOException {
+        shoutWriter.printShout(
+                favorite.user,
+                "None",
+                "Thank you so much for the fave!",
+                favorite.userLink,
+                "benchmark");
+    }
+}
@@ -0,0 +1,237 @@
+package net.tailwigglers.favthanker.cli;
+
+import net.tailwigglers.favthanker.engine.EngineListener;
+import net.tailwigglers.favthanker.engine.Login;
+import net.tailwigglers.favthanker.engine.Scheduler;
+import net.tailwigglers.favthanker.engine.ThankingEngine;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Activity;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.Group;
+import net.tailwigglers.favthanker.util.ProgressReporter;
+import net.tailwigglers.favthanker.util.Profile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+public class Main implements EngineListener {
+
+    private static final String USAGE = "Usage: --headless [--poll] [user.json] [cookieA cookieB]"
+            + " | --headless [--poll] --accounts a.json [cookieA cookieB] b.json [cookieA cookieB] ...";
+    private static final String POLL = "--poll";
+    private static final String ACCOUNTS = "--accounts";
+    private static final String JSON_EXTENSION = ".json";
+
+    private final Model model;
+    private final ProgressReporter reporter;
+    private final String prefix;
+
+    private Main(Model model, String prefix) {
+        this.model = model;
+        this.prefix = prefix;
+
+        // Print progress at most once a second
+        reporter = new ProgressReporter(Runnable::run, Constants.CONSOLE_PROGRESS_INTERVAL_MILLIS,
+                progress -> System.out.println(prefix + progress));
+    }
+
+    public static void main(String[] args) {
+        java.util.logging.Logger.getLogger("com.gargoylesoftware").setLevel(Level.OFF);
+        Model model = new Model();
+        List<Model> accounts = new CopyOnWriteArrayList<>();
+
+        // Save config, cookies and logs however the run ends, once the runs have stopped writing to them,
+        // and accounts first since they share the activity log
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                model.setStopFlag(true);
+                model.getTaskExecutor().shutdown();
+                for (Model account : accounts)
+                    account.persist();
+                model.persist();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }));
+
+        try {
+            int accountsIndex = Arrays.asList(args).indexOf(ACCOUNTS);
+            if (accountsIndex >= 0) {
+                runAccounts(model, accounts, args, accountsIndex);
+            } else {
+                run(model, args);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void run(Model model, String[] args) throws Exception {
+        // Keep polling instead of running once when asked to
+        boolean poll = args.length > 0 && args[0].equals(POLL);
+        if (poll)
+            args = Arrays.copyOfRange(args, 1, args.length);
+
+        // Use the given user file or the one from the last login
+        File userFile;
+        String lastUsername = model.getProps().getProperty(Constants.USERNAME);
+        if (args.length > 0) {
+            userFile = new File(args[0]);
+        } else if (lastUsername != null && !lastUsername.equals("")) {
+            userFile = new File(lastUsername + ".json");
+        } else {
+            throw new IllegalArgumentException(USAGE);
+        }
+
+        // Log in with the given cookies or the saved ones while the JSON is read
+        File cookieFile = new File(Constants.COOKIE_FILENAME);
+        if (args.length >= 3) {
+            Login.start(model, args[1], args[2]);
+        } else if (cookieFile.exists()) {
+            Login.start(model);
+        } else {
+            throw new IllegalArgumentException("No saved cookies. " + USAGE);
+        }
+        Profile profile = Profile.load(userFile);
+
+        Login.checkFaOnline(model);
+        Login.verify(model, profile.getUsername());
+        model.setProfile(profile);
+        System.out.println("Welcome " + model.getUsername() + "!");
+
+        // Run on a worker so a shutdown can interrupt pauses and requests
+        await(model, submit(model, poll, ""));
+    }
+
+    private static void runAccounts(Model model, List<Model> accounts, String[] args, int accountsIndex)
+            throws Exception {
+        boolean poll = Arrays.asList(args).subList(0, accountsIndex).contains(POLL);
+
+        // Every user file starts an account, an optional pair of cookies may follow it
+        List<String[]> entries = new ArrayList<>();
+        for (int i = accountsIndex + 1; i < args.length; i++) {
+            if (!args[i].endsWith(JSON_EXTENSION))
+                throw new IllegalArgumentException(USAGE);
+            if (i + 1 < args.length && !args[i + 1].endsWith(JSON_EXTENSION)) {
+                if (i + 2 >= args.length)
+                    throw new IllegalArgumentException(USAGE);
+                entries.add(new String[]{args[i], args[i + 1], args[i + 2]});
+                i += 2;
+            } else {
+                entries.add(new String[]{args[i]});
+            }
+        }
+        if (entries.isEmpty())
+            throw new IllegalArgumentException(USAGE);
+
+        // Every account holds a worker and a session for the whole run, so their number is capped
+        int maxAccounts = Integer.parseInt(model.getProps().getProperty(
+                Constants.MAX_ACCOUNTS, Constants.DEFAULT_MAX_ACCOUNTS));
+        if (entries.size() > maxAccounts)
+            throw new IllegalArgumentException("At most " + maxAccounts + " accounts can run at once, set "
+                    + Constants.MAX_ACCOUNTS + " in " + Constants.CONFIG_FILENAME + " to allow more");
+
+        // One worker per account run, the rest stay free for logins and page fetches
+        int workers = Integer.parseInt(model.getProps().getProperty(
+                Constants.WORKER_THREADS, Constants.DEFAULT_WORKER_THREADS));
+        model.getTaskExecutor().ensureWorkers(entries.size() + workers);
+
+        // Each account gets its own session, cookies and pacing but shares the pool and the activity log
+        List<Model> models = new ArrayList<>();
+        List<Future<?>> runs = new ArrayList<>();
+        for (String[] entry : entries) {
+            Profile profile = Profile.load(new File(entry[0]));
+            Model account = model.forAccount(Group.normalizeUser(profile.getUsername()));
+            accounts.add(account);
+
+            if (entry.length == 3) {
+                Login.start(account, entry[1], entry[2]);
+            } else if (account.getCookieFile().exists()) {
+                Login.start(account);
+            } else {
+                throw new IllegalArgumentException("No saved cookies for " + profile.getUsername() + ". " + USAGE);
+            }
+            Login.checkFaOnline(account);
+            Login.verify(account, profile.getUsername());
+            account.setProfile(profile);
+            System.out.println("Welcome " + account.getUsername() + "!");
+            models.add(account);
+        }
+        for (Model account : models)
+            runs.add(submit(account, poll, "[" + account.getUsername() + "] "));
+
+        // Wait for every account, the first failure is reported after the others finish
+        Exception failure = null;
+        for (int i = 0; i < runs.size(); i++) {
+            try {
+                await(models.get(i), runs.get(i));
+            } catch (Exception e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private static Future<?> submit(Model model, boolean poll, String prefix) {
+        Main listener = new Main(model, prefix);
+        return model.getTaskExecutor().submit(() -> {
+            try {
+                if (poll) {
+                    new Scheduler(model, listener).run();
+                } else {
+                    new ThankingEngine(model, listener).run();
+                }
+            } finally {
+                // Print the last progress if it was held back
+                listener.reporter.flush();
+            }
+            return null;
+        });
+    }
+
+    private static void await(Model model, Future<?> run) throws Exception {
+        try {
+            run.get();
+        } catch (ExecutionException e) {
+            // Being interrupted by a shutdown is not a failure
+            if (model.getStopFlag())
+                return;
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    @Override
+    public void print(String text) {
+        print(Activity.Info, text);
+    }
+
+    @Override
+    public void print(Activity activity, String text) {
+        System.out.println(prefix + text);
+
+        // Keep the same history on disk as the GUI
+        try {
+            model.getActivityWriter().printActivity(activity, prefix + text);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void progress(double current, double max) {
+        reporter.update(current, max);
+    }
+}
@@ -0,0 +1,14 @@
+package net.tailwigglers.favthanker.engine;
+
+import net.tailwigglers.favthanker.util.Activity;
+
+public interface EngineListener {
+
+    void print(String text);
+
+    default void print(Activity activity, String text) {
+        print(text);
+    }
+
+    void progress(double current, double max);
+}
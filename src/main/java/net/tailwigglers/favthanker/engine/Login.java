@@ -0,0 +1,159 @@
+package net.tailwigglers.favthanker.engine;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.RunMetrics;
+
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class Login {
+
+    private Login() {
+    }
+
+    public static void loadCookies(Model model) throws Exception {
+        // Read in cookie file
+        Set<Cookie> cookies = model.getCookieStore().load();
+
+        // Add cookies
+        for (Cookie cookie : cookies) {
+            model.getWebClient().getCookieManager().addCookie(cookie);
+        }
+    }
+
+    public static void start(Model model) {
+        start(model, () -> {
+            loadCookies(model);
+            return null;
+        });
+    }
+
+    public static void start(Model model, String cookieA, String cookieB) {
+        start(model, () -> {
+            model.getWebClient().getCookieManager().clearCookies();
+            model.getWebClient().addCookie(String.format("a=%s", cookieA), new URL(Constants.FA_BASE_URL), null);
+            model.getWebClient().addCookie(String.format("b=%s", cookieB), new URL(Constants.FA_BASE_URL), null);
+            return null;
+        });
+    }
+
+    private static void start(Model model, Callable<Void> setCookies) {
+        // Set the cookies and fetch the homepage once, in the background, for both the online and login checks
+        model.setHomePage(CompletableFuture.supplyAsync(() -> {
+            try {
+                setCookies.call();
+
+                // A recent verification with the same cookies needs no request at all
+                if (getVerifiedUser(model) != null)
+                    return null;
+                long start = System.nanoTime();
+                String src = model.getPageFetcher().get(Constants.FA_BASE_URL).getContentAsString();
+                model.getRunMetrics().record(RunMetrics.Phase.Login, start);
+                return src;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, model.getTaskExecutor()));
+    }
+
+    public static void verify(Model model, String username) throws Exception {
+        String src = awaitHomePage(model);
+
+        // Verified recently, but possibly as someone else
+        if (src == null) {
+            if (username.equals(getVerifiedUser(model)))
+                return;
+            long start = System.nanoTime();
+            src = model.getPageFetcher().get(Constants.FA_BASE_URL).getContentAsString();
+            model.getRunMetrics().record(RunMetrics.Phase.Login, start);
+        }
+
+        if (src.contains(username)) {
+            // Write cookies to file
+            model.getCookieStore().save(model.getWebClient().getCookieManager().getCookies());
+
+            // Remember the verification for quick restarts
+            Properties props = model.getProps();
+            props.setProperty(Constants.VERIFIED_USER, username);
+            props.setProperty(Constants.VERIFIED_AT, String.valueOf(System.currentTimeMillis()));
+            props.setProperty(Constants.VERIFIED_COOKIES, cookieDigest(model));
+        } else {
+            throw new Exception("Login failed! Try again.");
+        }
+    }
+
+    public static void checkFaOnline(Model model) throws Exception {
+        // Share the login's homepage fetch if there is one, FA was up if it was skipped
+        String src;
+        if (model.getHomePage() != null) {
+            src = awaitHomePage(model);
+            if (src == null)
+                return;
+        } else {
+            WebResponse faHomePage = model.getPageFetcher().get(Constants.FA_BASE_URL);
+            src = faHomePage.getContentAsString();
+        }
+
+        if (src.contains(Constants.CLOUDFLARE_PATTERN)) {
+            throw new Exception("Cloudflare");
+        }
+    }
+
+    private static String awaitHomePage(Model model) throws Exception {
+        try {
+            return model.getHomePage().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    private static String getVerifiedUser(Model model) throws Exception {
+        Properties props = model.getProps();
+        String user = props.getProperty(Constants.VERIFIED_USER);
+        String verifiedAt = props.getProperty(Constants.VERIFIED_AT);
+        String cookies = props.getProperty(Constants.VERIFIED_COOKIES);
+        long ttl = TimeUnit.MINUTES.toMillis(Long.parseLong(props.getProperty(
+                Constants.LOGIN_CACHE_MINUTES,
+                Constants.DEFAULT_LOGIN_CACHE_MINUTES)));
+
+        // Only trust a verification that is still fresh and was made with the cookies in use now
+        if (user == null || verifiedAt == null || cookies == null)
+            return null;
+        try {
+            if (System.currentTimeMillis() - Long.parseLong(verifiedAt) >= ttl)
+                return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (!cookies.equals(cookieDigest(model)))
+            return null;
+        return user;
+    }
+
+    private static String cookieDigest(Model model) throws Exception {
+        // Hash the login cookies rather than keeping a second copy of them in the config
+        TreeMap<String, String> login = new TreeMap<>();
+        for (Cookie cookie : model.getWebClient().getCookieManager().getCookies()) {
+            if (cookie.getName().equals("a") || cookie.getName().equals("b"))
+                login.put(cookie.getName(), cookie.getValue());
+        }
+        byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(login.toString().getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, digest));
+    }
+}
@@ -0,0 +1,82 @@
+package net.tailwigglers.favthanker.engine;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.FavoriteParser;
+import net.tailwigglers.favthanker.util.RateLimiter;
+import net.tailwigglers.favthanker.util.RunMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class Scheduler {
+
+    private final Model model;
+    private final EngineListener listener;
+
+    public Scheduler(final Model model, final EngineListener listener) {
+        this.model = model;
+        this.listener = listener;
+    }
+
+    public void run() throws InterruptedException {
+        long interval = TimeUnit.MINUTES.toMillis(model.getPollIntervalMinutes());
+
+        // Poll until stopped, a failed pass is reported and retried on the next poll
+        while (!model.getStopFlag()) {
+            try {
+                poll();
+            } catch (InterruptedException e) {
+                // Stopped or shut down, not a failed pass
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Requests cut off by a stop fail with all kinds of errors
+                if (model.getStopFlag() || Thread.currentThread().isInterrupted())
+                    return;
+                listener.print("Run failed: " + e.getMessage());
+            }
+
+            Thread.sleep(interval);
+        }
+    }
+
+    private void poll() throws Exception {
+        // Don't make any request while today's shouts are used up
+        if (model.isShoutBudgetReached()) {
+            listener.print("Daily shout budget reached, waiting");
+            return;
+        }
+
+        // Only the page up to the favorites counter in the header is downloaded, no DOM and no favorites parsing
+        long start = System.nanoTime();
+        model.getRateLimiter().acquireRead();
+        model.getRunMetrics().record(RunMetrics.Phase.Wait, start);
+        start = System.nanoTime();
+        WebResponse response = model.getPageFetcher().stream(Constants.FA_BASE_URL + "msg/others/");
+        model.getRateLimiter().record(response, false);
+        model.getRunMetrics().record(RunMetrics.Phase.Fetch, start);
+
+        int count = 0;
+        try {
+            if (RateLimiter.isThrottled(response.getStatusCode())) {
+                listener.print("FA is busy, waiting for the next poll");
+                return;
+            }
+            try (FavoriteParser parser = new FavoriteParser(response.getContentAsStream(), response.getContentCharset())) {
+                count = parser.readFavoriteCount();
+            }
+            if (count == 0) {
+                listener.print("No new favorites");
+                return;
+            }
+
+            // The run goes on with the same page, the rest of it is downloaded as it is read
+            listener.print(count + " favorites waiting, starting run");
+            new ThankingEngine(model, listener).run(response);
+        } finally {
+            if (count == 0)
+                response.cleanUp();
+        }
+    }
+}
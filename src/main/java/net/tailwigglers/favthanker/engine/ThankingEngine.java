@@ -0,0 +1,407 @@
+package net.tailwigglers.favthanker.engine;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.html.*;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Activity;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.Favorite;
+import net.tailwigglers.favthanker.util.FavoriteParser;
+import net.tailwigglers.favthanker.util.Group;
+import net.tailwigglers.favthanker.util.MessageTemplate;
+import net.tailwigglers.favthanker.util.RateLimiter;
+import net.tailwigglers.favthanker.util.RunJournal;
+import net.tailwigglers.favthanker.util.RunMetrics;
+import net.tailwigglers.favthanker.util.ShoutScanner;
+
+import java.util.*;
+
+public class ThankingEngine {
+
+    private final Model model;
+    private final EngineListener listener;
+
+    private static final int MAX_RETRIES = 5;
+
+    private int favCount;
+    private int numProcessed;
+
+    public ThankingEngine(final Model model, final EngineListener listener) {
+        this.model = model;
+        this.listener = listener;
+    }
+
+    public void run() throws Exception
+    {
+        run(null);
+    }
+
+    public void run(WebResponse loadedFavorites) throws Exception
+    {
+        // Get favorites page without building the DOM, unless the caller already has it
+        RateLimiter rateLimiter = model.getRateLimiter();
+        RunJournal journal = model.getRunJournal();
+        RunMetrics metrics = model.getRunMetrics();
+        WebResponse favoritesResponse = loadedFavorites != null ? loadedFavorites : requestFavorites(null);
+
+        // Retrieve fav count from the header
+        long start = System.nanoTime();
+        try (FavoriteParser parser = new FavoriteParser(
+                favoritesResponse.getContentAsStream(), favoritesResponse.getContentCharset())) {
+            favCount = parser.readFavoriteCount();
+        }
+        metrics.record(RunMetrics.Phase.Parse, start);
+        if (favCount == 0)
+            throw new Exception("No favorites in notification center.");
+        numProcessed = 0;
+
+        // A crash between clearing a batch and compacting leaves entries for notifications FA no longer has
+        if (!journal.isEmpty()) {
+            start = System.nanoTime();
+            HashSet<String> pendingIds = new HashSet<>();
+            try (FavoriteParser parser = new FavoriteParser(
+                    favoritesResponse.getContentAsStream(), favoritesResponse.getContentCharset())) {
+                Favorite favorite;
+                while ((favorite = parser.next()) != null)
+                    pendingIds.add(favorite.id);
+            }
+            metrics.record(RunMetrics.Phase.Parse, start);
+            journal.retain(pendingIds);
+        }
+
+        // Compare shout authors against names normalized once
+        String ownName = Group.normalizeUser(model.getUsername());
+        int retries = 0;
+        int shoutRetries = 0;
+
+        // In bounded mode only a batch of favorites is held at once and pages are let go while shouting
+        int maxBatch = model.getMaxBatchFavorites();
+        boolean bounded = maxBatch > 0;
+
+        // Update progress
+        listener.progress(numProcessed, favCount);
+
+        // Loop until all favorites are processed
+        while (numProcessed < favCount)
+        {
+            // Create map top hold favorite information
+            HashMap<String, ArrayList<String>> shouteeMap = new HashMap<>();
+            ArrayList<Favorite> favoriteList = new ArrayList<>();
+            HashSet<String> favoriteIds = new HashSet<>();
+
+            // Stream favorites from the user page and keep track of the favorites each user gave
+            start = System.nanoTime();
+            try (FavoriteParser parser = new FavoriteParser(
+                    favoritesResponse.getContentAsStream(), favoritesResponse.getContentCharset())) {
+                Favorite favorite;
+                while ((!bounded || favoriteList.size() < maxBatch) && (favorite = parser.next()) != null) {
+                    favoriteList.add(favorite);
+                    favoriteIds.add(favorite.id);
+
+                    // Favorites finished by an interrupted run only need to be cleared
+                    if (journal.isDone(favorite.id)) {
+                        numProcessed++;
+                        continue;
+                    }
+                    shouteeMap.computeIfAbsent(favorite.user, user -> new ArrayList<>()).add(favorite.id);
+                }
+            }
+            metrics.record(RunMetrics.Phase.Parse, start);
+            listener.progress(numProcessed, favCount);
+
+            // Release the page source until it is needed to clear the batch
+            if (bounded) {
+                favoritesResponse.cleanUp();
+                favoritesResponse = null;
+            }
+
+            // Done if no more favorites are found
+            if (favoriteList.isEmpty())
+                break;
+
+            // Loop while there are still users in the map
+            while (shouteeMap.size() != 0)
+            {
+                // Loop through all the users that left a favorite
+                for (Iterator<Map.Entry<String, ArrayList<String>>> entryIt = shouteeMap.entrySet().iterator(); entryIt.hasNext();)
+                {
+                    // Check if we need to stop
+                    if (model.getStopFlag()) {
+                        listener.print("Stopped");
+                        return;
+                    }
+
+                    // Leave the rest for another day once today's shouts are used up
+                    if (model.isShoutBudgetReached()) {
+                        listener.print("Daily shout budget reached");
+                        return;
+                    }
+
+                    // Get the entry and save the user and fav count
+                    Map.Entry<String, ArrayList<String>> entry = entryIt.next();
+                    final String shoutee = entry.getKey();
+                    final String shouteeWithoutUnderscore = shoutee.replace("_", "");
+                    int favs = entry.getValue().size();
+
+                    // Skip accounts already known to be disabled without any request
+                    if (model.getDisabledCache().isDisabled(shoutee)) {
+                        listener.print(Activity.Skipped, "Skipping " + shoutee + " (disabled)");
+                        journal.record(RunJournal.Outcome.Disabled, shoutee, entry.getValue());
+                        metrics.recordSkip();
+                        entryIt.remove();
+
+                        numProcessed += favs;
+                        listener.progress(numProcessed, favCount);
+                        continue;
+                    }
+
+                    listener.print("Processing " + shoutee);
+
+                    // A page checked a few minutes ago needs no request and no pause
+                    String shouteeLink = String.format(Constants.FA_BASE_URL + "user/%s/", shouteeWithoutUnderscore);
+                    WebResponse shouteeResponse = model.getPageFetcher().getCached(shouteeLink);
+                    boolean cached = shouteeResponse != null;
+                    if (!cached) {
+                        // Make sure we don't send requests too quickly
+                        start = System.nanoTime();
+                        rateLimiter.acquireRead();
+                        metrics.record(RunMetrics.Phase.Wait, start);
+
+                        // Load other user's page without building the DOM
+                        start = System.nanoTime();
+                        shouteeResponse = model.getPageFetcher().get(shouteeLink);
+                        rateLimiter.record(shouteeResponse, false);
+                        metrics.record(RunMetrics.Phase.Fetch, start);
+                    }
+
+                    // Come back to the user later if FA is overloaded, rather than mistaking the page for a disabled account
+                    if (RateLimiter.isThrottled(shouteeResponse.getStatusCode())) {
+                        if (++retries > MAX_RETRIES) {
+                            metrics.recordFailure();
+                            throw new Exception("FA keeps refusing requests (status " + shouteeResponse.getStatusCode() + ")");
+                        }
+                        listener.print("FA is busy, will retry " + shoutee);
+                        continue;
+                    }
+                    retries = 0;
+
+                    // Search the shouts for one made by user or other user, stopping at the first
+                    start = System.nanoTime();
+                    HashSet<String> shouters = new HashSet<>(Arrays.asList(ownName, Group.normalizeUser(shoutee)));
+                    boolean foundUser = ShoutScanner.hasShoutBy(shouteeResponse, shouters);
+
+                    // Only a page that ends in a skip can save a request later, a user who is shouted at needs a new page anyway
+                    if (foundUser && !cached)
+                        model.getPageFetcher().remember(shouteeLink, shouteeResponse);
+
+                    // Only shout from a fresh page, come back to the user once it has been loaded again
+                    if (!foundUser && cached) {
+                        model.getPageFetcher().invalidate(shouteeLink);
+                        continue;
+                    }
+
+                    // Only build the DOM if we are going to shout
+                    HtmlPage shouteeUserPage = null;
+                    List<HtmlForm> formList = Collections.emptyList();
+                    if (!foundUser) {
+                        shouteeUserPage = model.getPageFetcher().toPage(shouteeResponse);
+                        formList = shouteeUserPage.getForms();
+
+                        // Make sure they did not disable their account, and remember it if they did
+                        if (formList.size() < 2) {
+                            // Only a logged in profile without a shout box means that, a lost session or an
+                            // error page would otherwise mark everyone left as disabled
+                            if (shouteeResponse.getStatusCode() != 200 || !isLoggedIn(shouteeUserPage, ownName)) {
+                                metrics.record(RunMetrics.Phase.Parse, start);
+                                if (++retries > MAX_RETRIES) {
+                                    metrics.recordFailure();
+                                    throw new Exception("Could not load the page of " + shoutee + ", is the FA session still valid?");
+                                }
+                                listener.print("Could not load the page of " + shoutee + ", will retry");
+                                model.getPageFetcher().invalidate(shouteeLink);
+                                continue;
+                            }
+                            foundUser = true;
+                            model.getDisabledCache().markDisabled(shoutee);
+                        }
+                    }
+                    metrics.record(RunMetrics.Phase.Parse, start);
+
+                    // If not valid, remove the other user
+                    if (foundUser) {
+                        listener.print(Activity.Skipped, "Skipping " + shoutee);
+                        journal.record(RunJournal.Outcome.Skipped, shoutee, entry.getValue());
+                        metrics.recordSkip();
+                        entryIt.remove();
+
+                        numProcessed += favs;
+                        listener.progress(numProcessed, favCount);
+                        continue;
+                    }
+
+                    HtmlForm form = formList.get(formList.size() - 1);
+
+                    // Get shout box and submit button
+                    HtmlTextArea shoutBox = form.getTextAreaByName("shout");
+                    HtmlButton submitButton = form.getButtonByName("submit");
+
+                    // Resolve the user's group once
+                    Group group = model.getGroupForUser(shoutee);
+
+                    // Take a message the user did not get last time and fill it in
+                    List<MessageTemplate> templates = group != null ? group.getTemplates() : model.getMessages();
+                    String message = model.getMessageRotation().next(shoutee, templates).render(shoutee, favs);
+
+                    // Wait out what is left of the pause since the previous shout
+                    start = System.nanoTime();
+                    rateLimiter.acquireWrite();
+                    metrics.record(RunMetrics.Phase.Wait, start);
+
+                    // Stop may have been pressed during the pause, never shout after that
+                    if (model.getStopFlag() || Thread.currentThread().isInterrupted()) {
+                        listener.print("Stopped");
+                        return;
+                    }
+
+                    // Set inside the shout box and submit
+                    start = System.nanoTime();
+                    shoutBox.setText(message);
+                    // A refusal may not be HTML, so only the response is kept
+                    WebResponse shoutResponse = submitButton.click().getWebResponse();
+                    rateLimiter.record(shoutResponse, true);
+                    metrics.record(RunMetrics.Phase.Submit, start);
+
+                    // The page has changed, so the stored copy is no good anymore
+                    model.getPageFetcher().invalidate(shouteeLink);
+
+                    // A refused shout was not posted, the user is checked again and shouted at on a later pass
+                    int shoutStatus = shoutResponse.getStatusCode();
+                    if (RateLimiter.isThrottled(shoutStatus)) {
+                        if (++shoutRetries > MAX_RETRIES) {
+                            metrics.recordFailure();
+                            throw new Exception("FA keeps refusing shouts (status " + shoutStatus + ")");
+                        }
+                        listener.print("FA is busy, will retry the shout for " + shoutee);
+                        continue;
+                    }
+                    shoutRetries = 0;
+
+                    // See if user is there
+                    start = System.nanoTime();
+                    foundUser = ShoutScanner.hasShoutBy(shoutResponse, Collections.singleton(ownName));
+                    metrics.record(RunMetrics.Phase.Verify, start);
+
+                    // If shout is successfully verified, then remove!
+                    if (foundUser) {
+                        String groupName = group != null ? group.getName() : "None";
+
+                        listener.print(Activity.Shouted, "Shouted at " + shoutee);
+                        model.getShoutWriter().printShout(shoutee, groupName, message, shouteeLink, model.getUsername());
+                        journal.record(RunJournal.Outcome.Shouted, shoutee, entry.getValue());
+                        metrics.recordShout();
+                        entryIt.remove();
+
+                        numProcessed += favs;
+                        listener.progress(numProcessed, favCount);
+
+                        // In pipelined mode the next shoutees are fetched and checked during the pause
+                        if (!model.isPipelined() && numProcessed != favCount) {
+                            start = System.nanoTime();
+                            rateLimiter.awaitWrite();
+                            metrics.record(RunMetrics.Phase.Wait, start);
+                        }
+                    } else {
+                        // For safety, we will just throw an exception here!
+                        listener.print(Activity.Failed, "Shout failed for " + shoutee);
+                        metrics.recordFailure();
+                        System.err.println(shoutResponse.getContentAsString());
+                        throw new Exception("Shout failed for " + shoutee);
+                    }
+                }
+            }
+
+            // Print favorites
+            for (Favorite favorite : favoriteList)
+                model.getFavWriter().printFavorite(favorite, model.getUsername());
+
+            // Remove exactly this batch by posting the form fields, no page or DOM is needed for it
+            List<NameValuePair> parameters = new ArrayList<>(favoriteIds.size() + 1);
+            for (String id : favoriteIds)
+                parameters.add(new NameValuePair("favorites[]", id));
+            parameters.add(new NameValuePair("remove-favorites", "1"));
+            if (favoritesResponse != null)
+                favoritesResponse.cleanUp();
+            favoritesResponse = requestFavorites(parameters);
+            checkCleared(favoritesResponse, favoriteIds);
+
+            // The journal no longer needs to remember cleared notifications
+            journal.compact(favoriteIds);
+
+            listener.print("Cleared favorite notifications");
+        }
+    }
+
+    private static void checkCleared(WebResponse response, Set<String> favoriteIds) throws Exception {
+        // The batch was at the top of the page, so if FA ignored the post its first favorite would still come first
+        if (response.getStatusCode() != 200)
+            throw new Exception("Could not clear favorite notifications (status " + response.getStatusCode() + ")");
+        try (FavoriteParser parser = new FavoriteParser(response.getContentAsStream(), response.getContentCharset())) {
+            Favorite first = parser.next();
+            if (first != null && favoriteIds.contains(first.id))
+                throw new Exception("Could not clear favorite notifications!");
+        }
+    }
+
+    private WebResponse requestFavorites(List<NameValuePair> removals) throws Exception {
+        // Reads the notifications, or removes the given ones when there are any, and waits out FA being busy
+        String url = Constants.FA_BASE_URL + "msg/others/";
+        RateLimiter rateLimiter = model.getRateLimiter();
+        RunMetrics metrics = model.getRunMetrics();
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            WebResponse response = removals == null
+                    ? model.getPageFetcher().get(url)
+                    : model.getPageFetcher().post(url, removals);
+            rateLimiter.record(response, false);
+            metrics.record(removals == null ? RunMetrics.Phase.Fetch : RunMetrics.Phase.Submit, start);
+            if (!RateLimiter.isThrottled(response.getStatusCode()))
+                return response;
+
+            if (attempt > MAX_RETRIES) {
+                metrics.recordFailure();
+                throw new Exception("FA keeps refusing requests (status " + response.getStatusCode() + ")");
+            }
+            listener.print("FA is busy, will retry the notifications");
+            response.cleanUp();
+
+            start = System.nanoTime();
+            rateLimiter.acquireRead();
+            metrics.record(RunMetrics.Phase.Wait, start);
+        }
+    }
+
+    private static boolean isLoggedIn(HtmlPage page, String ownName) {
+        // Pages seen while logged in link to our own profile and to the logout page
+        for (HtmlAnchor anchor : page.getAnchors()) {
+            String href = anchor.getHrefAttribute().toLowerCase(Locale.ROOT);
+            if (href.contains("/logout/"))
+                return true;
+            if (href.startsWith("/user/") && ownName.equals(Group.normalizeUser(href.substring(6).replace("/", ""))))
+                return true;
+        }
+        for (HtmlForm form : page.getForms()) {
+            if (form.getActionAttribute().toLowerCase(Locale.ROOT).contains("/logout/"))
+                return true;
+        }
+        return false;
+    }
+
+    public int getFavCount() {
+        return favCount;
+    }
+
+    public int getProcessedCount() {
+        return numProcessed;
+    }
+}
@@ -0,0 +1,125 @@
+package net.tailwigglers.favthanker.gui;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import net.tailwigglers.favthanker.util.Activity;
+import net.tailwigglers.favthanker.util.ActivityWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ActivityLog {
+
+    private static final String ALL = "All";
+
+    static class Entry {
+        final Activity activity;
+        final String text;
+
+        Entry(Activity activity, String text) {
+            this.activity = activity;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final ActivityWriter writer;
+    private final int capacity;
+
+    // Lines waiting for the next pulse, and whether a flush is already on its way
+    private final ConcurrentLinkedQueue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final ObservableList<Entry> entries = FXCollections.observableArrayList();
+    private final FilteredList<Entry> filtered = new FilteredList<>(entries);
+    private final ListView<Entry> listView = new ListView<>(filtered);
+    private final BorderPane node = new BorderPane();
+
+    ActivityLog(ActivityWriter writer, int capacity) {
+        this.writer = writer;
+        this.capacity = capacity;
+
+        // Only show one kind of outcome when asked to
+        ChoiceBox<String> filter = new ChoiceBox<>();
+        filter.getItems().add(ALL);
+        for (Activity activity : new Activity[]{Activity.Shouted, Activity.Skipped, Activity.Failed})
+            filter.getItems().add(activity.name());
+        filter.setValue(ALL);
+        filter.valueProperty().addListener((observable, oldValue, newValue) -> {
+            filtered.setPredicate(ALL.equals(newValue) ? null : entry -> entry.activity.name().equals(newValue));
+            scrollToEnd();
+        });
+
+        HBox filterBox = new HBox(5, new Label("Show:"), filter);
+        filterBox.setAlignment(Pos.CENTER_LEFT);
+        filterBox.setPadding(new Insets(0, 0, 5, 0));
+
+        node.setTop(filterBox);
+        node.setCenter(listView);
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    ListView<Entry> getListView() {
+        return listView;
+    }
+
+    void print(Activity activity, String text) {
+        Entry entry = new Entry(activity, text);
+
+        // Everything goes to disk, the list only keeps the latest lines
+        if (writer != null) {
+            try {
+                writer.printActivity(activity, text);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        pending.add(entry);
+        if (scheduled.compareAndSet(false, true))
+            Platform.runLater(this::flush);
+    }
+
+    private void flush() {
+        // Take everything that arrived since the last pulse in one go
+        scheduled.set(false);
+        ArrayList<Entry> batch = new ArrayList<>();
+        Entry entry;
+        while ((entry = pending.poll()) != null)
+            batch.add(entry);
+
+        // Keep the newest lines, dropping the oldest first
+        if (batch.size() > capacity)
+            batch = new ArrayList<>(batch.subList(batch.size() - capacity, batch.size()));
+        int overflow = entries.size() + batch.size() - capacity;
+        if (overflow > 0)
+            entries.remove(0, overflow);
+        entries.addAll(batch);
+
+        scrollToEnd();
+    }
+
+    private void scrollToEnd() {
+        if (!filtered.isEmpty())
+            listView.scrollTo(filtered.size() - 1);
+    }
+}
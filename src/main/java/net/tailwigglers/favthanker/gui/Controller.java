@@ -2,9 +2,12 @@ package net.tailwigglers.favthanker.gui;
 
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import net.tailwigglers.favthanker.engine.Login;
+import net.tailwigglers.favthanker.model.Model;
 import net.tailwigglers.favthanker.tasks.CheckFaOnlineTask;
 import net.tailwigglers.favthanker.tasks.LoadJsonTask;
 import net.tailwigglers.favthanker.tasks.ThankingTask;
+import net.tailwigglers.favthanker.util.Constants;
 
 import java.io.File;
 
@@ -13,6 +16,8 @@ public class Controller implements EventHandler<ActionEvent> {
     private final Model model;
     private final View view;
 
+    private ThankingTask thankingTask;
+
     Controller(final Model model, final View view) {
         this.model = model;
         this.view = view;
@@ -36,11 +41,17 @@ public class Controller implements EventHandler<ActionEvent> {
         view.setStateInProgress();
         model.setStopFlag(false);
 
-        new Thread(new ThankingTask(model, view)).start();
+        thankingTask = new ThankingTask(model, view);
+        model.getTaskExecutor().execute(thankingTask);
     }
 
     private void handleStopButton() {
+        // Wake the run from any pause or request instead of waiting for the next user
         model.setStopFlag(true);
+        view.setStateStopping();
+        if (thankingTask != null)
+            thankingTask.cancel(true);
+        model.cancelRequests();
     }
 
     private void handleSelectUserButton() {
@@ -56,11 +67,17 @@ public class Controller implements EventHandler<ActionEvent> {
     }
 
     void login(File userFile, boolean useCookie) {
-        new Thread(new LoadJsonTask(model, view, userFile, useCookie)).start();
+        // Load saved cookies and fetch the homepage while the JSON is read
+        File cookieFile = new File(Constants.COOKIE_FILENAME);
+        useCookie = useCookie && cookieFile.exists();
+        if (useCookie)
+            Login.start(model);
+
+        model.getTaskExecutor().execute(new LoadJsonTask(model, view, userFile, useCookie));
     }
 
     void checkFaOnline() {
-        new Thread(new CheckFaOnlineTask(model, view)).start();
+        model.getTaskExecutor().execute(new CheckFaOnlineTask(model, view));
     }
 
 }
@@ -1,7 +1,14 @@
 package net.tailwigglers.favthanker.gui;
 
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
-        View.main(args);
+        // Run without JavaFX when asked to
+        if (args.length > 0 && args[0].equals("--headless")) {
+            net.tailwigglers.favthanker.cli.Main.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            View.main(args);
+        }
     }
 }
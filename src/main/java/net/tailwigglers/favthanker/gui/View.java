@@ -16,7 +16,10 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Activity;
 import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.ProgressReporter;
 
 import java.io.File;
 import java.io.PrintWriter;
@@ -38,7 +41,7 @@ public class View extends Application implements ChangeListener<Boolean> {
     private ProgressBar progressBar;
     private Label progressLabel;
 
-    private TextArea textArea;
+    private ActivityLog activityLog;
     private Label faStatusLabel;
 
     private Region veil;
@@ -87,10 +90,9 @@ public class View extends Application implements ChangeListener<Boolean> {
         progressLabel.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         progressLabel.setAlignment(Pos.CENTER);
 
-        textArea = new TextArea();
-        textArea.textProperty().addListener((observable, oldValue, newValue) -> textArea.setScrollTop(Double.MAX_VALUE));
-        textArea.setEditable(false);
-        textArea.focusedProperty().addListener(this);
+        activityLog = new ActivityLog(model.getActivityWriter(), Constants.ACTIVITY_LOG_CAPACITY);
+        activityLog.getListView().focusedProperty().addListener(this);
+        Node activityNode = activityLog.getNode();
 
         Label faStatusPrefixLabel = new Label(Constants.FA_STATUS);
         faStatusPrefixLabel.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
@@ -177,9 +179,9 @@ public class View extends Application implements ChangeListener<Boolean> {
         GridPane.setFillWidth(progressLabel, true);
         GridPane.setFillHeight(progressLabel, true);
 
-        grid.add(textArea, 0, 3, 3, 2);
-        GridPane.setFillWidth(textArea, true);
-        GridPane.setFillHeight(textArea, true);
+        grid.add(activityNode, 0, 3, 3, 2);
+        GridPane.setFillWidth(activityNode, true);
+        GridPane.setFillHeight(activityNode, true);
 
         grid.add(faStatusBox,0,5);
         GridPane.setFillWidth(faStatusBox, true);
@@ -253,6 +255,12 @@ public class View extends Application implements ChangeListener<Boolean> {
         selectUserButton.setDisable(true);
     }
 
+    void setStateStopping() {
+        // Start stays disabled until the run has really ended
+        progressLabel.setText(Constants.STOPPING);
+        stopButton.setDisable(true);
+    }
+
     public void setStateProgressError(Throwable e) {
         Platform.runLater(() -> {
             createExceptionDialog(e);
@@ -261,15 +269,13 @@ public class View extends Application implements ChangeListener<Boolean> {
             selectUserButton.setDisable(false);
             stopButton.setDisable(true);
 
-            progressBar.progressProperty().unbind();
-            progressBar.progressProperty().setValue(ProgressBar.INDETERMINATE_PROGRESS);
+            progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
             progressLabel.setText(Constants.STOPPED);
         });
     }
 
-    public void setStateProgressSuccess(final int favCount) {
+    public void setStateProgressSuccess(final int processed, final int favCount) {
         Platform.runLater(() -> {
-            progressBar.progressProperty().unbind();
             startButton.setDisable(false);
             stopButton.setDisable(true);
             selectUserButton.setDisable(false);
@@ -277,7 +283,9 @@ public class View extends Application implements ChangeListener<Boolean> {
             if (model.getStopFlag()) {
                 progressLabel.setText(Constants.STOPPED);
             } else {
-                progressLabel.setText(favCount + "/" + favCount);
+                // A run cut short by the shout budget only got through part of the favorites
+                progressBar.setProgress(favCount == 0 ? 1 : (double) processed / favCount);
+                progressLabel.setText(processed + "/" + favCount);
             }
         });
     }
@@ -308,8 +316,9 @@ public class View extends Application implements ChangeListener<Boolean> {
         return fileChooser.showOpenDialog(stage);
     }
 
-    public void updateProgress(final double current, final double max) {
-        Platform.runLater(() -> progressLabel.setText((int) current + "/" + (int) max));
+    public void showProgress(ProgressReporter.Progress progress) {
+        progressBar.setProgress(progress.getFraction());
+        progressLabel.setText(progress.toString());
     }
 
     public void setVeilVisible(boolean visible) {
@@ -329,7 +338,11 @@ public class View extends Application implements ChangeListener<Boolean> {
     }
 
     public void print(String text) {
-        Platform.runLater(() -> textArea.appendText(text + "\n"));
+        print(Activity.Info, text);
+    }
+
+    public void print(Activity activity, String text) {
+        activityLog.print(activity, text);
     }
 
     private void createExceptionDialog(Throwable e) {
@@ -436,10 +449,6 @@ public class View extends Application implements ChangeListener<Boolean> {
         return selectUserButton;
     }
 
-    public ProgressBar getProgressBar() {
-        return progressBar;
-    }
-
     @Override
     public void changed(ObservableValue<? extends Boolean> observableValue, Boolean aBoolean, Boolean t1) {
         Platform.runLater(() -> userLabel.requestFocus());
@@ -0,0 +1,418 @@
+package net.tailwigglers.favthanker.model;
+
+import com.gargoylesoftware.htmlunit.CookieManager;
+import com.gargoylesoftware.htmlunit.HttpWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import net.tailwigglers.favthanker.util.ActivityWriter;
+import net.tailwigglers.favthanker.util.AdaptiveRateLimiter;
+import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.util.CookieStore;
+import net.tailwigglers.favthanker.util.DisabledCache;
+import net.tailwigglers.favthanker.util.FavWriter;
+import net.tailwigglers.favthanker.util.Group;
+import net.tailwigglers.favthanker.util.HistoryIndex;
+import net.tailwigglers.favthanker.util.MessageRotation;
+import net.tailwigglers.favthanker.util.MessageTemplate;
+import net.tailwigglers.favthanker.util.PageFetcher;
+import net.tailwigglers.favthanker.util.Profile;
+import net.tailwigglers.favthanker.util.RateLimiter;
+import net.tailwigglers.favthanker.util.ResponseCache;
+import net.tailwigglers.favthanker.util.RunJournal;
+import net.tailwigglers.favthanker.util.RunMetrics;
+import net.tailwigglers.favthanker.util.Rotation;
+import net.tailwigglers.favthanker.util.ShoutWriter;
+import net.tailwigglers.favthanker.util.StreamingWebConnection;
+import net.tailwigglers.favthanker.util.TaskExecutor;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+public class Model {
+
+    // Set for an extra account, which shares pool, logs and caches with the main model
+    private Model shared;
+    private File accountDirectory;
+
+    private Properties props;
+    private WebClient webClient;
+    private PageFetcher pageFetcher;
+    private RateLimiter rateLimiter;
+    private ShoutWriter shoutWriter;
+    private FavWriter favWriter;
+    private ActivityWriter activityWriter;
+    private DisabledCache disabledCache;
+    private HistoryIndex historyIndex;
+    private RunJournal runJournal;
+    private MessageRotation messageRotation;
+    private CookieStore cookieStore;
+    private TaskExecutor taskExecutor;
+    private RunMetrics runMetrics;
+    private volatile CompletableFuture<String> homePage;
+
+    private int maxBatchFavorites;
+    private int pollIntervalMinutes;
+    private int dailyShoutBudget;
+    private boolean pipelined;
+    private boolean foundConfig;
+    private volatile boolean stopFlag;
+
+    private String username;
+    private ArrayList<MessageTemplate> messages;
+    private ArrayList<Group> groups;
+    private HashMap<String, Group> groupIndex;
+
+    public Model() {
+        // Initialize variables
+        messages = new ArrayList<>();
+        groups = new ArrayList<>();
+        groupIndex = new HashMap<>();
+        foundConfig = false;
+        stopFlag = false;
+        username = "";
+
+        // Create new web client
+        webClient = createWebClient();
+
+        // Cookies are kept between runs
+        cookieStore = new CookieStore(new File(Constants.COOKIE_FILENAME));
+
+        // Read in config properties
+        try (InputStream input = new FileInputStream(Constants.CONFIG_FILENAME)) {
+            props = new Properties();
+            props.load(input);
+            foundConfig = true;
+        } catch (IOException ex) {
+            props = new Properties();
+        }
+
+        // Limit on favorites held in memory at once, 0 means a whole page
+        maxBatchFavorites = Integer.parseInt(props.getProperty(
+                Constants.MAX_BATCH_FAVORITES,
+                Constants.DEFAULT_MAX_BATCH_FAVORITES));
+
+        // Scheduling settings, a budget of 0 means no limit
+        pollIntervalMinutes = Integer.parseInt(props.getProperty(
+                Constants.POLL_INTERVAL_MINUTES,
+                Constants.DEFAULT_POLL_INTERVAL_MINUTES));
+        dailyShoutBudget = Integer.parseInt(props.getProperty(
+                Constants.DAILY_SHOUT_BUDGET,
+                Constants.DEFAULT_DAILY_SHOUT_BUDGET));
+
+        // Prepare the next shoutee while waiting between shouts
+        pipelined = Boolean.parseBoolean(props.getProperty(Constants.PIPELINED, Constants.DEFAULT_PIPELINED));
+
+        // Run background work on a shared set of workers
+        taskExecutor = TaskExecutor.fromProperties(props);
+        if (Boolean.parseBoolean(props.getProperty(Constants.VIRTUAL_THREADS, Constants.DEFAULT_VIRTUAL_THREADS))
+                && !taskExecutor.isVirtual())
+            System.err.println("Virtual threads are not available on this Java version, using worker threads instead");
+
+        // Publish timings and counts over JMX
+        runMetrics = new RunMetrics();
+        runMetrics.register();
+
+        // Create fetcher for read-only pages, user pages and static files are kept for a while
+        pageFetcher = new PageFetcher(webClient, ResponseCache.fromProperties(
+                new File(Constants.RESPONSE_CACHE_DIRECTORY), props, runMetrics));
+
+        // Pace requests to FA
+        rateLimiter = AdaptiveRateLimiter.fromProperties(props, runMetrics);
+
+        // Pick up where an interrupted run left off
+        runJournal = new RunJournal(new File(Constants.RUN_JOURNAL_FILENAME));
+
+        // Remember which message each user got last
+        messageRotation = new MessageRotation(new File(Constants.MESSAGE_HISTORY_FILENAME));
+
+        // Load accounts previously found to be disabled
+        disabledCache = openDisabledCache(null);
+
+        try {
+            File shoutsCsv = new File(Constants.SHOUTS_CSV_FILENAME);
+            File favoritesCsv = new File(Constants.FAVORITES_CSV_FILENAME);
+
+            // Load the index before the writers touch the logs
+            historyIndex = HistoryIndex.load(new File(Constants.HISTORY_INDEX_FILENAME), favoritesCsv, shoutsCsv);
+
+            Rotation rotation = Rotation.fromProperties(props);
+            shoutWriter = new ShoutWriter(shoutsCsv, rotation, historyIndex);
+            favWriter = new FavWriter(favoritesCsv, rotation, historyIndex);
+            activityWriter = new ActivityWriter(new File(Constants.ACTIVITY_CSV_FILENAME), rotation);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private Model(Model shared, String account) throws IOException {
+        this.shared = shared;
+        messages = new ArrayList<>();
+        groups = new ArrayList<>();
+        groupIndex = new HashMap<>();
+        foundConfig = shared.foundConfig;
+        username = "";
+
+        // Everything that belongs to one FA login lives in its own folder
+        accountDirectory = new File(Constants.ACCOUNTS_DIRECTORY, account);
+        if (!accountDirectory.isDirectory() && !accountDirectory.mkdirs())
+            throw new IOException("Could not create " + accountDirectory);
+
+        // Settings come from the main config, only login state is kept per account
+        props = new Properties(shared.props);
+        File config = new File(accountDirectory, Constants.CONFIG_FILENAME);
+        if (config.exists()) {
+            try (InputStream input = new FileInputStream(config)) {
+                props.load(input);
+            }
+        }
+
+        // Own session, cookies and pacing
+        webClient = createWebClient();
+        cookieStore = new CookieStore(new File(accountDirectory, Constants.COOKIE_FILENAME));
+        pageFetcher = new PageFetcher(webClient, ResponseCache.fromProperties(
+                new File(accountDirectory, Constants.RESPONSE_CACHE_DIRECTORY), props, shared.runMetrics));
+        rateLimiter = AdaptiveRateLimiter.fromProperties(props, shared.runMetrics);
+        runJournal = new RunJournal(new File(accountDirectory, Constants.RUN_JOURNAL_FILENAME));
+        messageRotation = new MessageRotation(new File(accountDirectory, Constants.MESSAGE_HISTORY_FILENAME));
+
+        // Shared with the main model
+        maxBatchFavorites = shared.maxBatchFavorites;
+        pollIntervalMinutes = shared.pollIntervalMinutes;
+        dailyShoutBudget = shared.dailyShoutBudget;
+        pipelined = shared.pipelined;
+        taskExecutor = shared.taskExecutor;
+        runMetrics = shared.runMetrics;
+        historyIndex = shared.historyIndex;
+        shoutWriter = shared.shoutWriter;
+        favWriter = shared.favWriter;
+        activityWriter = shared.activityWriter;
+
+        // Which users this login found disabled
+        disabledCache = openDisabledCache(accountDirectory);
+    }
+
+    private DisabledCache openDisabledCache(File directory) {
+        return new DisabledCache(
+                new File(directory, Constants.DISABLED_CACHE_FILENAME),
+                Long.parseLong(props.getProperty(
+                        Constants.DISABLED_CACHE_TTL_HOURS,
+                        Constants.DEFAULT_DISABLED_CACHE_TTL_HOURS)));
+    }
+
+    public Model forAccount(String account) throws IOException {
+        return new Model(this, account);
+    }
+
+    public File getCookieFile() {
+        return new File(accountDirectory, Constants.COOKIE_FILENAME);
+    }
+
+    public void persist() throws Exception {
+        // An extra account only saves its own state, the main model closes what is shared
+        if (shared != null) {
+            cancelRequests();
+            try (OutputStream output = new FileOutputStream(new File(accountDirectory, Constants.CONFIG_FILENAME))) {
+                props.store(output, null);
+            }
+            cookieStore.save(webClient.getCookieManager().getCookies());
+            webClient.close();
+            messageRotation.save();
+            return;
+        }
+
+        // Stop background work before saving
+        cancelRequests();
+        taskExecutor.shutdown();
+
+        // Save config
+        OutputStream output = new FileOutputStream(Constants.CONFIG_FILENAME);
+        if (props == null)
+            props = new Properties();
+        // A run with several accounts has no user of its own, keep the last one
+        if (!username.equals(""))
+            props.setProperty(Constants.USERNAME, username);
+        props.store(output, null);
+
+        // Save cookies if they changed
+        cookieStore.save(webClient.getCookieManager().getCookies());
+
+        // Close stuff
+        webClient.close();
+        shoutWriter.close();
+        favWriter.close();
+        activityWriter.close();
+        historyIndex.save();
+        messageRotation.save();
+    }
+
+    public void cancelRequests() {
+        // Closing the connection makes requests in flight fail right away, the next request opens a new one
+        WebConnection connection = webClient.getWebConnection();
+        if (connection instanceof HttpWebConnection)
+            ((HttpWebConnection) connection).close();
+    }
+
+    public RunMetrics getRunMetrics() {
+        return runMetrics;
+    }
+
+    public TaskExecutor getTaskExecutor() {
+        return taskExecutor;
+    }
+
+    public boolean getStopFlag() {
+        return stopFlag || (shared != null && shared.getStopFlag());
+    }
+
+    public WebClient getWebClient() {
+        return webClient;
+    }
+
+    public PageFetcher getPageFetcher() {
+        return pageFetcher;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public ShoutWriter getShoutWriter() {
+        return shoutWriter;
+    }
+
+    public FavWriter getFavWriter() {
+        return favWriter;
+    }
+
+    public ActivityWriter getActivityWriter() {
+        return activityWriter;
+    }
+
+    public DisabledCache getDisabledCache() {
+        return disabledCache;
+    }
+
+    public CompletableFuture<String> getHomePage() {
+        return homePage;
+    }
+
+    public void setHomePage(CompletableFuture<String> homePage) {
+        this.homePage = homePage;
+    }
+
+    public CookieStore getCookieStore() {
+        return cookieStore;
+    }
+
+    public MessageRotation getMessageRotation() {
+        return messageRotation;
+    }
+
+    public RunJournal getRunJournal() {
+        return runJournal;
+    }
+
+    public int getMaxBatchFavorites() {
+        return maxBatchFavorites;
+    }
+
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public int getPollIntervalMinutes() {
+        return pollIntervalMinutes;
+    }
+
+    public boolean isShoutBudgetReached() {
+        if (dailyShoutBudget <= 0)
+            return false;
+
+        // Count today's shouts of this account from the history index, the logs are shared by all accounts
+        return historyIndex.count(HistoryIndex.Kind.ShoutsByAccount, new Date(), username) >= dailyShoutBudget;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public ArrayList<MessageTemplate> getMessages() {
+        return messages;
+    }
+
+    public ArrayList<Group> getGroups() {
+        return groups;
+    }
+
+    public Group getGroupForUser(String user) {
+        return groupIndex.get(Group.normalizeUser(user));
+    }
+
+    public Properties getProps() {
+        return props;
+    }
+
+    public boolean getFoundConfig() {
+        return foundConfig;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setMessages(ArrayList<MessageTemplate> messages) {
+        this.messages = messages;
+    }
+
+    public void setGroups(ArrayList<Group> groups) {
+        this.groups = groups;
+    }
+
+    public void setGroupIndex(HashMap<String, Group> groupIndex) {
+        this.groupIndex = groupIndex;
+    }
+
+    public void setProfile(Profile profile) {
+        setUsername(profile.getUsername());
+        setMessages(profile.getMessages());
+        setGroups(profile.getGroups());
+        setGroupIndex(profile.getGroupIndex());
+    }
+
+    public void setStopFlag(boolean stopFlag) {
+        this.stopFlag = stopFlag;
+    }
+
+    private static WebClient createWebClient() {
+        WebClient webClient = new WebClient();
+        webClient.getOptions().setCssEnabled(false);
+        webClient.getOptions().setJavaScriptEnabled(false);
+        webClient.getOptions().setTimeout(30000);
+        webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        webClient.waitForBackgroundJavaScript(10_000);
+        webClient.waitForBackgroundJavaScriptStartingBefore(10000);
+        webClient.setJavaScriptTimeout(10000);
+        webClient.getOptions().setRedirectEnabled(true);
+
+        // Lets the poll read the favorites counter without downloading the whole page
+        webClient.setWebConnection(new StreamingWebConnection(webClient));
+
+        // Caching is done by the page fetcher with its own rules, pages loaded with a DOM are never cached
+        webClient.getCache().setMaxSize(0);
+
+        // Enable cookies
+        CookieManager manager = webClient.getCookieManager();
+        manager.setCookiesEnabled(true);
+        webClient.setCookieManager(manager);
+        return webClient;
+    }
+}
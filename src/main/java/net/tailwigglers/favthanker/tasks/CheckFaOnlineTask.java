@@ -1,10 +1,9 @@
 package net.tailwigglers.favthanker.tasks;
 
-import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import javafx.concurrent.Task;
-import net.tailwigglers.favthanker.gui.Model;
+import net.tailwigglers.favthanker.engine.Login;
 import net.tailwigglers.favthanker.gui.View;
-import net.tailwigglers.favthanker.util.Constants;
+import net.tailwigglers.favthanker.model.Model;
 
 public class CheckFaOnlineTask extends Task<Void> {
 
@@ -18,12 +17,7 @@ public class CheckFaOnlineTask extends Task<Void> {
 
     @Override
     protected Void call() throws Exception {
-        HtmlPage faHomePage = model.getWebClient().getPage(Constants.FA_BASE_URL);
-
-        if (faHomePage.getWebResponse().getContentAsString().contains(Constants.CLOUDFLARE_PATTERN)) {
-            throw new Exception("Cloudflare");
-        }
-
+        Login.checkFaOnline(model);
         return null;
     }
 
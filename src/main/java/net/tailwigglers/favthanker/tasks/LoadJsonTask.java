@@ -1,17 +1,12 @@
 package net.tailwigglers.favthanker.tasks;
 
 import javafx.concurrent.Task;
-import net.tailwigglers.favthanker.gui.Model;
+import net.tailwigglers.favthanker.engine.Login;
 import net.tailwigglers.favthanker.gui.View;
-import net.tailwigglers.favthanker.util.Constants;
-import net.tailwigglers.favthanker.util.Group;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Profile;
 
 import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
 import java.util.Optional;
 
 public class LoadJsonTask extends Task<Void> {
@@ -22,9 +17,7 @@ public class LoadJsonTask extends Task<Void> {
     private File userFile;
     private boolean useCookie;
 
-    private String tempUsername;
-    private ArrayList<String> tempMessages = new ArrayList<>();
-    private ArrayList<Group> tempGroups = new ArrayList<>();
+    private Profile profile;
 
     public LoadJsonTask(final Model model, final View view, final File userFile, final boolean useCookie) {
         this.model = model;
@@ -36,36 +29,7 @@ public class LoadJsonTask extends Task<Void> {
     @Override
     protected Void call() throws Exception
     {
-        // Create JSON object
-        Object obj = new JSONParser().parse(new FileReader(userFile));
-        JSONObject jo = (JSONObject) obj;
-
-        // Store data
-        tempUsername = (String) jo.get("username");
-        JSONArray ja = (JSONArray) jo.get("messages");
-        for (Object message : ja) {
-            tempMessages.add((String) message);
-        }
-
-        // Store group info
-        JSONObject groups = (JSONObject) jo.get("groups");
-        groups.forEach((Object groupName, Object group) -> {
-            ArrayList<String> users = new ArrayList<>();
-            ArrayList<String> messages = new ArrayList<>();
-
-            JSONObject jGroup = (JSONObject) group;
-            JSONArray jUsers = (JSONArray) jGroup.get("users");
-            JSONArray jMessages = (JSONArray) jGroup.get("messages");
-
-            for (Object user : jUsers)
-                users.add((String) user);
-
-            for (Object message : jMessages)
-                messages.add((String) message);
-
-            tempGroups.add(new Group((String) groupName, users, messages));
-        });
-
+        profile = Profile.load(userFile);
         return null;
     }
 
@@ -77,13 +41,10 @@ public class LoadJsonTask extends Task<Void> {
     @Override
     protected void succeeded()
     {
-        // Check for cookies
-        File cookieFile = new File(Constants.COOKIE_FILENAME);
-
-        // Check whether to login with cookie
-        if (cookieFile.exists() && useCookie)
+        // Saved cookies are already being loaded and checked alongside the JSON
+        if (useCookie)
         {
-            new Thread(new LoadCookiesTask(model, view, cookieFile, tempUsername, tempMessages, tempGroups)).start();
+            model.getTaskExecutor().execute(new VerifyLoginTask(model, view, profile));
         }
         else {
             // Show dialog and get result
@@ -93,7 +54,8 @@ public class LoadJsonTask extends Task<Void> {
                 String cookieA = result.get()[0];
                 String cookieB = result.get()[1];
 
-                new Thread(new VerifyLoginTask(model, view, tempUsername, tempMessages, tempGroups, cookieA, cookieB)).start();
+                Login.start(model, cookieA, cookieB);
+                model.getTaskExecutor().execute(new VerifyLoginTask(model, view, profile));
             } else {
                 view.setVeilVisible(false);
             }
@@ -1,81 +1,35 @@
 package net.tailwigglers.favthanker.tasks;
 
-import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import javafx.concurrent.Task;
-import net.tailwigglers.favthanker.gui.Model;
+import net.tailwigglers.favthanker.engine.Login;
 import net.tailwigglers.favthanker.gui.View;
-import net.tailwigglers.favthanker.util.Constants;
-import net.tailwigglers.favthanker.util.Group;
-
-import java.io.FileOutputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.net.URL;
-import java.util.ArrayList;
+import net.tailwigglers.favthanker.model.Model;
+import net.tailwigglers.favthanker.util.Profile;
 
 public class VerifyLoginTask extends Task<Void> {
 
     private final Model model;
     private final View view;
-    private final String tempUsername;
-    private final ArrayList<String> tempMessages;
-    private final ArrayList<Group> tempGroups;
-    private final String cookieA;
-    private final String cookieB;
+    private final Profile profile;
 
     public VerifyLoginTask(Model model,
                            View view,
-                           String tempUsername,
-                           ArrayList<String> tempMessages,
-                           ArrayList<Group> tempGroups,
-                           String cookieA,
-                           String cookieB
+                           Profile profile
     ) {
         this.model = model;
         this.view = view;
-        this.tempUsername = tempUsername;
-        this.tempMessages = tempMessages;
-        this.tempGroups = tempGroups;
-        this.cookieA = cookieA;
-        this.cookieB = cookieB;
-    }
-
-    public VerifyLoginTask(Model model,
-                           View view,
-                           String tempUsername,
-                           ArrayList<String> tempMessages,
-                           ArrayList<Group> tempGroups
-    ) {
-        this(model, view, tempUsername, tempMessages, tempGroups, null, null);
+        this.profile = profile;
     }
 
     @Override
     protected Void call() throws Exception {
-        if (cookieA != null && cookieB != null) {
-            model.getWebClient().getCookieManager().clearCookies();
-            model.getWebClient().addCookie(String.format("a=%s", cookieA), new URL(Constants.FA_BASE_URL), null);
-            model.getWebClient().addCookie(String.format("b=%s", cookieB), new URL(Constants.FA_BASE_URL), null);
-        }
-
-        HtmlPage faHomePage = model.getWebClient().getPage(Constants.FA_BASE_URL);
-
-        if (faHomePage.getWebResponse().getContentAsString().contains(tempUsername)) {
-            // Write cookies to file
-            ObjectOutput out = new ObjectOutputStream(new FileOutputStream(Constants.COOKIE_FILENAME));
-            out.writeObject(model.getWebClient().getCookieManager().getCookies());
-            out.close();
-        } else {
-            throw new Exception("Login failed! Try again.");
-        }
-
+        Login.verify(model, profile.getUsername());
         return null;
     }
 
     @Override
     protected void succeeded() {
-        model.setUsername(tempUsername);
-        model.setMessages(tempMessages);
-        model.setGroups(tempGroups);
+        model.setProfile(profile);
         view.welcomeUser();
     }
 
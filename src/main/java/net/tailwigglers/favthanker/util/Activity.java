@@ -0,0 +1,5 @@
+package net.tailwigglers.favthanker.util;
+
+public enum Activity {
+    Info, Shouted, Skipped, Failed
+}
@@ -0,0 +1,35 @@
+package net.tailwigglers.favthanker.util;
+
+import org.apache.commons.lang3.time.DateFormatUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+public class ActivityWriter {
+
+    private AsyncCsvWriter writer;
+
+    public enum Headers {
+        Timestamp, Activity, Message
+    }
+
+    public ActivityWriter(File file, Rotation rotation) throws IOException {
+        writer = new AsyncCsvWriter(
+                file,
+                rotation,
+                Headers.Timestamp,
+                Headers.Activity,
+                Headers.Message);
+    }
+
+    public void printActivity(Activity activity, String message) throws IOException {
+        String timestamp = DateFormatUtils.ISO_8601_EXTENDED_DATETIME_FORMAT.format(new Date());
+        writer.printRecord(timestamp, activity, message);
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveRateLimiter implements RateLimiter {
+
+    private static final double BACKOFF_THROTTLED = 2.0;
+    private static final double BACKOFF_SLOW = 1.5;
+    private static final double BACKOFF_RECOVER = 0.75;
+
+    private final long readIntervalMillis;
+    private final long writeIntervalMillis;
+    private final long slowResponseMillis;
+    private final double maxBackoff;
+    private final RunMetrics metrics;
+
+    // Pauses are multiplied by this while the site is struggling
+    private double backoff = 1.0;
+    private long lastRequestMillis;
+    private long lastWriteMillis;
+    private long blockedUntilMillis;
+
+    public AdaptiveRateLimiter(long readIntervalMillis,
+                               long writeIntervalMillis,
+                               long slowResponseMillis,
+                               double maxBackoff,
+                               RunMetrics metrics) {
+        this.readIntervalMillis = readIntervalMillis;
+        this.writeIntervalMillis = writeIntervalMillis;
+        this.slowResponseMillis = slowResponseMillis;
+        this.maxBackoff = maxBackoff;
+        this.metrics = metrics;
+    }
+
+    public static AdaptiveRateLimiter fromProperties(Properties props, RunMetrics metrics) {
+        return new AdaptiveRateLimiter(
+                Long.parseLong(props.getProperty(Constants.READ_INTERVAL_MILLIS, Constants.DEFAULT_READ_INTERVAL_MILLIS)),
+                Long.parseLong(props.getProperty(Constants.WRITE_INTERVAL_MILLIS, Integer.toString(Constants.WAIT_SHOUT))),
+                Long.parseLong(props.getProperty(Constants.SLOW_RESPONSE_MILLIS, Constants.DEFAULT_SLOW_RESPONSE_MILLIS)),
+                Double.parseDouble(props.getProperty(Constants.MAX_BACKOFF, Constants.DEFAULT_MAX_BACKOFF)),
+                metrics);
+    }
+
+    @Override
+    public void acquireRead() throws InterruptedException {
+        pause(reserve(false));
+    }
+
+    @Override
+    public void acquireWrite() throws InterruptedException {
+        pause(reserve(true));
+    }
+
+    @Override
+    public void awaitWrite() throws InterruptedException {
+        long delay;
+        synchronized (this) {
+            // The time the site asked us to stay away for counts as well
+            delay = Math.max(nextWriteMillis(), blockedUntilMillis) - System.currentTimeMillis();
+            metrics.recordRateLimitWait(Math.max(0, delay));
+        }
+        pause(delay);
+    }
+
+    @Override
+    public synchronized void record(WebResponse response, boolean write) {
+        long now = System.currentTimeMillis();
+
+        // Pauses are measured from the end of the previous request
+        lastRequestMillis = now;
+        if (write)
+            lastWriteMillis = now;
+
+        if (RateLimiter.isThrottled(response.getStatusCode())) {
+            metrics.recordThrottled();
+            backoff = Math.min(maxBackoff, backoff * BACKOFF_THROTTLED);
+
+            // Respect the time the site asks us to stay away for
+            String retryAfter = response.getResponseHeaderValue("Retry-After");
+            if (retryAfter != null && retryAfter.trim().matches("\\d+"))
+                blockedUntilMillis = Math.max(blockedUntilMillis,
+                        now + TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())));
+        } else if (response.getLoadTime() > slowResponseMillis) {
+            metrics.recordSlowResponse();
+            backoff = Math.min(maxBackoff, backoff * BACKOFF_SLOW);
+        } else {
+            backoff = Math.max(1.0, backoff * BACKOFF_RECOVER);
+        }
+        metrics.recordBackoff(backoff);
+    }
+
+    private synchronized long reserve(boolean write) {
+        long now = System.currentTimeMillis();
+
+        // Reads only wait if the previous request was too recent, shouts only wait on the previous shout
+        long start = Math.max(now, blockedUntilMillis);
+        if (write) {
+            start = Math.max(start, nextWriteMillis());
+            lastWriteMillis = start;
+            metrics.recordWrite();
+        } else {
+            start = Math.max(start, lastRequestMillis + (long) (readIntervalMillis * backoff));
+            metrics.recordRead();
+        }
+        lastRequestMillis = start;
+
+        metrics.recordRateLimitWait(start - now);
+        return start - now;
+    }
+
+    private long nextWriteMillis() {
+        return lastWriteMillis == 0 ? 0 : lastWriteMillis + (long) (writeIntervalMillis * backoff);
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0)
+            Thread.sleep(millis);
+    }
+}
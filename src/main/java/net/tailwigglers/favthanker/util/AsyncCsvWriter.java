@@ -0,0 +1,222 @@
+package net.tailwigglers.favthanker.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncCsvWriter {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BATCH_SIZE = 256;
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    // Records start with a timestamp such as 2020-01-31T12:00:00
+    private static final FastDateFormat DAY_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd");
+    private static final int DAY_LENGTH = 10;
+
+    // Marks the end of the queue, nothing is queued after it
+    private static final Object[] END = new Object[0];
+
+    private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final File file;
+    private final Object[] headers;
+    private final Rotation rotation;
+    private final Thread thread;
+
+    // Only touched by the writer thread once it is started
+    private FileOutputStream output;
+    private CSVPrinter printer;
+    private long firstRecordMillis;
+    private long headerBytes;
+
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public AsyncCsvWriter(File file, Rotation rotation, Object... headers) throws IOException {
+        this.file = file;
+        this.rotation = rotation;
+        this.headers = headers;
+        CsvHistory.recover(file);
+
+        // A log written with other columns is moved aside, so every segment matches its own header
+        if (!hasHeaders()) {
+            File segment = CsvHistory.seal(file);
+            CsvHistory.compress(file, segment);
+        }
+        open();
+
+        thread = new Thread(this::drain, "csv-writer-" + file.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void printRecord(Object... record) throws IOException {
+        synchronized (this) {
+            if (closed)
+                throw new IOException("Writer is closed");
+            enqueue(record);
+        }
+    }
+
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!closed) {
+                closed = true;
+                if (thread.isAlive())
+                    enqueue(END);
+            }
+        }
+
+        // Wait for every queued record to reach the disk
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing writer");
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    private void enqueue(Object[] record) throws IOException {
+        // Block while the queue is full, but give up if the writer thread has died. A stopped run
+        // still gets its record written, the interrupt is only passed on once it is queued
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                        break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (failure != null)
+                    throw failure;
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    private void open() throws IOException {
+        boolean exists = file.exists();
+        firstRecordMillis = -1;
+        headerBytes = 0;
+        if (exists)
+            readFirstRecord();
+        output = new FileOutputStream(file, true);
+        printer = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(output)), CSVFormat.DEFAULT);
+
+        // Write headers to new files right away
+        if (!exists) {
+            printer.printRecord(headers);
+            printer.flush();
+            headerBytes = output.getChannel().size();
+        }
+    }
+
+    private boolean hasHeaders() throws IOException {
+        if (!file.exists())
+            return true;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+            String header = in.readLine();
+            return header == null || header.equals(CSVFormat.DEFAULT.format(headers));
+        }
+    }
+
+    private void readFirstRecord() throws IOException {
+        // A segment belongs to the day of its first record, which starts with the timestamp
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+            String header = in.readLine();
+            if (header == null)
+                return;
+            headerBytes = (header + CSVFormat.DEFAULT.getRecordSeparator()).getBytes(Charset.defaultCharset()).length;
+
+            String record = in.readLine();
+            if (record == null || record.isEmpty())
+                return;
+            try {
+                firstRecordMillis = DAY_FORMAT.parse(record.substring(0, Math.min(DAY_LENGTH, record.length()))).getTime();
+            } catch (ParseException e) {
+                // Fall back to the file time for records without a timestamp
+                firstRecordMillis = file.lastModified();
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        // Close the current segment durably before moving it aside
+        printer.flush();
+        output.getFD().sync();
+        printer.close();
+
+        File segment = CsvHistory.seal(file);
+        open();
+        CsvHistory.compress(file, segment);
+    }
+
+    private void drain() {
+        ArrayList<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            boolean done = false;
+            while (!done) {
+                // Take whatever has piled up and write it with a single flush
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+
+                // Start a new segment first if the current one is full or from another day
+                long now = System.currentTimeMillis();
+                if (rotation.isDue(output.getChannel().size() - headerBytes, firstRecordMillis, now))
+                    rotate();
+
+                for (Object[] record : batch) {
+                    if (record == END) {
+                        done = true;
+                        break;
+                    }
+                    if (firstRecordMillis < 0)
+                        firstRecordMillis = now;
+                    printer.printRecord(record);
+                }
+
+                batch.clear();
+                printer.flush();
+            }
+
+            // Make sure everything is durable before closing
+            output.getFD().sync();
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Writer thread interrupted");
+        } finally {
+            try {
+                printer.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+    }
+}
@@ -10,8 +10,54 @@ public class Constants {
     public static final String CONFIG_FILENAME = "config.properties";
     public static final String SHOUTS_CSV_FILENAME = "shouts.csv";
     public static final String FAVORITES_CSV_FILENAME = "favorites.csv";
+    public static final String DISABLED_CACHE_FILENAME = "disabled.cache";
+    public static final String HISTORY_INDEX_FILENAME = "history.index";
+    public static final String RUN_JOURNAL_FILENAME = "run.journal";
+    public static final String ACTIVITY_CSV_FILENAME = "activity.csv";
+    public static final String MESSAGE_HISTORY_FILENAME = "message.history";
+    public static final String ACCOUNTS_DIRECTORY = "accounts";
+    public static final String RESPONSE_CACHE_DIRECTORY = "response.cache";
+
+    public static final int ACTIVITY_LOG_CAPACITY = 1000;
+    public static final long FRAME_INTERVAL_MILLIS = 16;
+    public static final long CONSOLE_PROGRESS_INTERVAL_MILLIS = 1000;
 
     public static final String USERNAME = "username";
+    public static final String DISABLED_CACHE_TTL_HOURS = "disabledCacheTtlHours";
+    public static final String DEFAULT_DISABLED_CACHE_TTL_HOURS = "168";
+    public static final String CSV_ROTATION = "csvRotation";
+    public static final String CSV_ROTATION_MAX_BYTES = "csvRotationMaxBytes";
+    public static final String DEFAULT_CSV_ROTATION_MAX_BYTES = "10485760";
+    public static final String MAX_BATCH_FAVORITES = "maxBatchFavorites";
+    public static final String DEFAULT_MAX_BATCH_FAVORITES = "0";
+    public static final String POLL_INTERVAL_MINUTES = "pollIntervalMinutes";
+    public static final String DEFAULT_POLL_INTERVAL_MINUTES = "30";
+    public static final String DAILY_SHOUT_BUDGET = "dailyShoutBudget";
+    public static final String DEFAULT_DAILY_SHOUT_BUDGET = "0";
+    public static final String PIPELINED = "pipelined";
+    public static final String DEFAULT_PIPELINED = "false";
+    public static final String READ_INTERVAL_MILLIS = "readIntervalMillis";
+    public static final String DEFAULT_READ_INTERVAL_MILLIS = "1000";
+    public static final String WRITE_INTERVAL_MILLIS = "writeIntervalMillis";
+    public static final String SLOW_RESPONSE_MILLIS = "slowResponseMillis";
+    public static final String DEFAULT_SLOW_RESPONSE_MILLIS = "10000";
+    public static final String MAX_BACKOFF = "maxBackoff";
+    public static final String DEFAULT_MAX_BACKOFF = "8";
+    public static final String WORKER_THREADS = "workerThreads";
+    public static final String DEFAULT_WORKER_THREADS = "4";
+    public static final String MAX_ACCOUNTS = "maxAccounts";
+    public static final String DEFAULT_MAX_ACCOUNTS = "4";
+    public static final String VIRTUAL_THREADS = "virtualThreads";
+    public static final String DEFAULT_VIRTUAL_THREADS = "false";
+    public static final String LOGIN_CACHE_MINUTES = "loginCacheMinutes";
+    public static final String DEFAULT_LOGIN_CACHE_MINUTES = "60";
+    public static final String VERIFIED_USER = "verifiedUser";
+    public static final String VERIFIED_AT = "verifiedAt";
+    public static final String VERIFIED_COOKIES = "verifiedCookies";
+    public static final String RESPONSE_CACHE_MAX_MB = "responseCacheMaxMb";
+    public static final String DEFAULT_RESPONSE_CACHE_MAX_MB = "50";
+    public static final String USER_PAGE_CACHE_MINUTES = "userPageCacheMinutes";
+    public static final String DEFAULT_USER_PAGE_CACHE_MINUTES = "10";
 
     public static final String SELECT_USER_PROMPT = "Please select a user!";
     public static final String START = "Start";
@@ -19,6 +65,7 @@ public class Constants {
     public static final String SELECT_USER = "Select User";
     public static final String STOPPED = "Stopped";
     public static final String STARTING = "Starting";
+    public static final String STOPPING = "Stopping";
 
     public static final String LOGO_FILEPATH = "logo.png";
     public static final String TITLE = "FA Favorite Thanker";
@@ -0,0 +1,112 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.util.Cookie;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CookieStore {
+
+    private static final String HEADER = "# FavThanker cookies 1";
+    private static final int FIELDS = 7;
+
+    // First bytes of a file written by ObjectOutputStream
+    private static final int SERIALIZED_MAGIC = 0xACED;
+
+    private final File file;
+
+    // What the file holds right now, so unchanged cookies are not written again
+    private String stored;
+
+    public CookieStore(File file) {
+        this.file = file;
+    }
+
+    public synchronized Set<Cookie> load() throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        // Read cookies saved by older versions once, they are rewritten in the new format on the next save
+        if (bytes.length >= 2 && ((bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF)) == SERIALIZED_MAGIC)
+            return loadSerialized(bytes);
+
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        Set<Cookie> cookies = new LinkedHashSet<>();
+        for (String line : text.split("\n")) {
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            // domain, path, name, value, expiry millis, secure, http only
+            String[] fields = line.split("\t", -1);
+            if (fields.length != FIELDS)
+                throw new IOException("Malformed cookie file " + file);
+            try {
+                long expires = Long.parseLong(fields[4]);
+                cookies.add(new Cookie(
+                        fields[0],
+                        fields[2],
+                        fields[3],
+                        fields[1].isEmpty() ? null : fields[1],
+                        expires < 0 ? null : new Date(expires),
+                        Boolean.parseBoolean(fields[5]),
+                        Boolean.parseBoolean(fields[6])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed cookie file " + file, e);
+            }
+        }
+        stored = text;
+        return cookies;
+    }
+
+    public synchronized boolean save(Collection<Cookie> cookies) throws IOException {
+        String text = format(cookies);
+        if (text.equals(stored))
+            return false;
+
+        AtomicFiles.write(file, text);
+        stored = text;
+        return true;
+    }
+
+    private static String format(Collection<Cookie> cookies) {
+        // Sort the lines so the same cookies always give the same file
+        List<String> lines = new ArrayList<>();
+        for (Cookie cookie : cookies) {
+            String line = String.join("\t",
+                    cookie.getDomain(),
+                    cookie.getPath() == null ? "" : cookie.getPath(),
+                    cookie.getName(),
+                    cookie.getValue() == null ? "" : cookie.getValue(),
+                    String.valueOf(cookie.getExpires() == null ? -1 : cookie.getExpires().getTime()),
+                    String.valueOf(cookie.isSecure()),
+                    String.valueOf(cookie.isHttpOnly()));
+
+            // Cookie values never hold tabs or line breaks, skip anything that would break the format
+            if (line.split("\t", -1).length == FIELDS && line.indexOf('\n') < 0 && line.indexOf('\r') < 0)
+                lines.add(line);
+        }
+        lines.sort(null);
+
+        StringBuilder text = new StringBuilder(HEADER).append('\n');
+        for (String line : lines)
+            text.append(line).append('\n');
+        return text.toString();
+    }
+
+    private static Set<Cookie> loadSerialized(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            Set<Cookie> cookies = new LinkedHashSet<>();
+            for (Object cookie : (Collection<?>) in.readObject())
+                cookies.add((Cookie) cookie);
+            return cookies;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable cookie file", e);
+        }
+    }
+}
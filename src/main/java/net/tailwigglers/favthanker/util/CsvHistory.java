@@ -0,0 +1,168 @@
+package net.tailwigglers.favthanker.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CsvHistory implements Iterable<CSVRecord>, Closeable {
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final FastDateFormat SEGMENT_DATE_FORMAT = FastDateFormat.getInstance("yyyyMMdd-HHmmss");
+
+    private final File activeFile;
+    private CSVParser parser;
+
+    public CsvHistory(File activeFile) {
+        this.activeFile = activeFile;
+    }
+
+    public List<File> getSegments() throws IOException {
+        // Closed segments in the order they were written, followed by the active file
+        List<File> segments = new ArrayList<>();
+        for (String name : readManifest(activeFile)) {
+            File segment = new File(activeFile.getAbsoluteFile().getParentFile(), name);
+            if (segment.exists())
+                segments.add(segment);
+        }
+        if (activeFile.exists())
+            segments.add(activeFile);
+        return segments;
+    }
+
+    @Override
+    public Iterator<CSVRecord> iterator() {
+        final Iterator<File> files;
+        try {
+            files = getSegments().iterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new Iterator<CSVRecord>() {
+            private Iterator<CSVRecord> records;
+
+            @Override
+            public boolean hasNext() {
+                // Move on to the next segment once the current one is used up
+                while (records == null || !records.hasNext()) {
+                    try {
+                        close();
+                        if (!files.hasNext())
+                            return false;
+                        parser = open(files.next());
+                        records = parser.iterator();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public CSVRecord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return records.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
+    }
+
+    static File seal(File activeFile) throws IOException {
+        // Pick a timestamped name for the active file
+        String base = activeFile.getName().replaceFirst("\\.csv$", "");
+        String stamp = SEGMENT_DATE_FORMAT.format(new Date());
+        File directory = activeFile.getAbsoluteFile().getParentFile();
+        File segment = new File(directory, base + "-" + stamp + ".csv");
+        for (int i = 1; segment.exists() || new File(segment.getPath() + GZIP_SUFFIX).exists(); i++)
+            segment = new File(directory, base + "-" + stamp + "-" + i + ".csv");
+
+        // List the segment before moving it aside, so no segment is ever missing from the manifest
+        List<String> names = readManifest(activeFile);
+        names.add(segment.getName());
+        writeManifest(activeFile, names);
+        if (!activeFile.renameTo(segment))
+            throw new IOException("Could not rotate " + activeFile);
+        return segment;
+    }
+
+    static void compress(File activeFile, File segment) throws IOException {
+        File compressed = new File(segment.getPath() + GZIP_SUFFIX);
+        AtomicFiles.write(compressed, out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out);
+            Files.copy(segment.toPath(), gzip);
+            gzip.finish();
+        });
+
+        // Point the manifest at the archive before removing the uncompressed copy
+        List<String> names = readManifest(activeFile);
+        names.replaceAll(name -> name.equals(segment.getName()) ? compressed.getName() : name);
+        writeManifest(activeFile, names);
+        Files.delete(segment.toPath());
+    }
+
+    static void recover(File activeFile) throws IOException {
+        // Finish compressing segments left behind by a crash during rotation
+        File directory = activeFile.getAbsoluteFile().getParentFile();
+        for (String name : readManifest(activeFile)) {
+            if (name.endsWith(GZIP_SUFFIX)) {
+                File segment = new File(directory, name.substring(0, name.length() - GZIP_SUFFIX.length()));
+                if (segment.exists() && new File(directory, name).exists())
+                    Files.delete(segment.toPath());
+            } else {
+                File segment = new File(directory, name);
+                if (segment.exists())
+                    compress(activeFile, segment);
+            }
+        }
+    }
+
+    private static List<String> readManifest(File activeFile) throws IOException {
+        List<String> names = new ArrayList<>();
+        File manifest = manifestFile(activeFile);
+        if (manifest.exists()) {
+            for (String name : Files.readAllLines(manifest.toPath())) {
+                if (!name.trim().isEmpty())
+                    names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    private static void writeManifest(File activeFile, List<String> names) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String name : names)
+            text.append(name).append(System.lineSeparator());
+        AtomicFiles.write(manifestFile(activeFile), text.toString());
+    }
+
+    private static File manifestFile(File activeFile) {
+        return new File(activeFile.getPath() + MANIFEST_SUFFIX);
+    }
+
+    private static CSVParser open(File segment) throws IOException {
+        InputStream in = new FileInputStream(segment);
+        if (segment.getName().endsWith(GZIP_SUFFIX))
+            in = new GZIPInputStream(in);
+        return new CSVParser(new BufferedReader(new InputStreamReader(in)), CSVFormat.DEFAULT.withFirstRecordAsHeader());
+    }
+}
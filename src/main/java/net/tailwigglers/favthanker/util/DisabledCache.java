@@ -0,0 +1,67 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class DisabledCache {
+
+    private final File file;
+    private final long ttlMillis;
+    private final Properties entries;
+
+    public DisabledCache(File file, long ttlHours) {
+        this.file = file;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.entries = new Properties();
+
+        // Read in previous results, a missing or broken file just means an empty cache
+        if (file.exists()) {
+            try (InputStream input = new FileInputStream(file)) {
+                entries.load(input);
+            } catch (IOException e) {
+                entries.clear();
+            }
+        }
+
+        // Forget entries that have expired
+        long now = System.currentTimeMillis();
+        for (String user : entries.stringPropertyNames()) {
+            if (isExpired(user, now))
+                entries.remove(user);
+        }
+    }
+
+    public synchronized boolean isDisabled(String user) {
+        String key = Group.normalizeUser(user);
+        if (!entries.containsKey(key))
+            return false;
+
+        if (isExpired(key, System.currentTimeMillis())) {
+            entries.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void markDisabled(String user) throws IOException {
+        entries.setProperty(Group.normalizeUser(user), Long.toString(System.currentTimeMillis()));
+        save();
+    }
+
+    private boolean isExpired(String key, long now) {
+        try {
+            return now - Long.parseLong(entries.getProperty(key)) > ttlMillis;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private void save() throws IOException {
+        AtomicFiles.write(file, output ->
+                entries.store(output, "Accounts found disabled or shout-locked, with the time they were found"));
+    }
+}
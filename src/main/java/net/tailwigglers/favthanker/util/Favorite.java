@@ -2,12 +2,14 @@ package net.tailwigglers.favthanker.util;
 
 public class Favorite {
 
+    public final String id;
     public final String user;
     public final String userLink;
     public final String art;
     public final String artLink;
 
-    public Favorite(String user, String userLink, String art, String artLink) {
+    public Favorite(String id, String user, String userLink, String art, String artLink) {
+        this.id = id;
         this.user = user;
         this.userLink = userLink;
         this.art = art;
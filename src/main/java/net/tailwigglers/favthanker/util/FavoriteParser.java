@@ -0,0 +1,96 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+public class FavoriteParser extends MarkupReader {
+
+    // Markers of a single favorite entry on the notification page, in the order they appear
+    private static final String ID_MARKER = "name=\"favorites[]\" value=\"";
+    private static final String USER_LINK_MARKER = "\"><a href=\"/";
+    private static final String USER_MARKER = "\"><strong>";
+    private static final String ART_LINK_MARKER = "</strong></a> favorited <a href=\"/";
+    private static final String ART_MARKER = "\"><strong>\"";
+    private static final String END_MARKER = "\"</strong>";
+
+    // Favorites counter in the page header, e.g. <a ... href="/msg/others/#favorites" ...>12F</a>
+    private static final String COUNT_MARKER = "href=\"/msg/others/#favorites\"";
+
+    private static final int[] ID_MARKER_TABLE = buildTable(ID_MARKER);
+    private static final int[] COUNT_MARKER_TABLE = buildTable(COUNT_MARKER);
+
+    public FavoriteParser(InputStream in, Charset charset) {
+        super(in, charset);
+    }
+
+    public Favorite next() throws IOException {
+        while (skipPast(ID_MARKER, ID_MARKER_TABLE)) {
+            // Read every field in order, starting over at the next entry on any mismatch
+            String id = readUntil('"');
+            if (id == null || !isDigits(id) || !expect(USER_LINK_MARKER))
+                continue;
+
+            String userLink = readUntil('"');
+            if (userLink == null || !expect(USER_MARKER))
+                continue;
+
+            String user = readUntil('<');
+            if (user == null || !expect(ART_LINK_MARKER))
+                continue;
+
+            String artLink = readUntil('"');
+            if (artLink == null || !isViewLink(artLink) || !expect(ART_MARKER))
+                continue;
+
+            String art = readUntil('"');
+            if (art == null || !expect(END_MARKER))
+                continue;
+
+            return new Favorite(
+                    id,
+                    user,
+                    Constants.FA_BASE_URL + userLink,
+                    art,
+                    Constants.FA_BASE_URL + artLink);
+        }
+
+        return null;
+    }
+
+    public int readFavoriteCount() throws IOException {
+        // No counter means there are no favorite notifications
+        if (!skipPast(COUNT_MARKER, COUNT_MARKER_TABLE) || readUntil('>') == null || !expect(">"))
+            return 0;
+
+        String text = readUntil('<');
+        if (text == null)
+            return 0;
+
+        // Keep the leading digits of the text, dropping the F suffix
+        text = text.trim();
+        int end = 0;
+        while (end < text.length() && text.charAt(end) >= '0' && text.charAt(end) <= '9')
+            end++;
+        return end > 0 ? Integer.parseInt(text.substring(0, end)) : 0;
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty())
+            return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isViewLink(String link) {
+        // Must look like view/<digits>/
+        return link.length() > 6
+                && link.startsWith("view/")
+                && link.endsWith("/")
+                && isDigits(link.substring(5, link.length() - 1));
+    }
+}
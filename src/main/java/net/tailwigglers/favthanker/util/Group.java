@@ -1,31 +1,35 @@
 package net.tailwigglers.favthanker.util;
 
 import java.util.ArrayList;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Locale;
 
 public class Group {
 
     private String name;
     private ArrayList<String> users;
-    private ArrayList<String> messages;
+    private ArrayList<MessageTemplate> templates;
 
     public Group(String name, ArrayList<String> users, ArrayList<String> messages) {
         this.name = name;
         this.users = users;
-        this.messages = messages;
+        this.templates = MessageTemplate.compileAll(messages);
     }
 
-    public boolean containsUser(String userToCheck) {
-        return users.stream().anyMatch((String user) -> user.equals(userToCheck));
+    public static String normalizeUser(String user) {
+        // FA treats names the same regardless of case and underscores
+        return user.replace("_", "").toLowerCase(Locale.ROOT);
     }
 
     public String getName() {
         return name;
     }
 
-    public String getRandomMessage() {
-        int rand = ThreadLocalRandom.current().nextInt(0, messages.size());
-        return messages.get(rand);
+    public ArrayList<String> getUsers() {
+        return users;
+    }
+
+    public ArrayList<MessageTemplate> getTemplates() {
+        return templates;
     }
 
 }
@@ -0,0 +1,141 @@
+package net.tailwigglers.favthanker.util;
+
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class HistoryIndex {
+
+    public enum Kind {
+        FavoritesByUser, ShoutsByUser, ShoutsByGroup, ShoutsByAccount
+    }
+
+    // Buckets are days in the same format as the start of the CSV timestamps
+    private static final FastDateFormat DAY_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd");
+    private static final int DAY_LENGTH = 10;
+
+    private final File file;
+    private final File favoritesCsv;
+    private final File shoutsCsv;
+    private final EnumMap<Kind, TreeMap<String, HashMap<String, Long>>> counts = new EnumMap<>(Kind.class);
+
+    private HistoryIndex(File file, File favoritesCsv, File shoutsCsv) {
+        this.file = file;
+        this.favoritesCsv = favoritesCsv;
+        this.shoutsCsv = shoutsCsv;
+        for (Kind kind : Kind.values())
+            counts.put(kind, new TreeMap<>());
+    }
+
+    public static HistoryIndex load(File file, File favoritesCsv, File shoutsCsv) throws IOException {
+        HistoryIndex index = new HistoryIndex(file, favoritesCsv, shoutsCsv);
+
+        // Use the saved index if the logs have not changed since, otherwise rebuild it once
+        if (!index.read())
+            index.rebuild();
+        return index;
+    }
+
+    public synchronized void recordFavorite(String timestamp, String user) {
+        increment(Kind.FavoritesByUser, day(timestamp), user);
+    }
+
+    public synchronized void recordShout(String timestamp, String user, String group, String account) {
+        increment(Kind.ShoutsByUser, day(timestamp), user);
+        increment(Kind.ShoutsByGroup, day(timestamp), group);
+        increment(Kind.ShoutsByAccount, day(timestamp), account);
+    }
+
+    public synchronized long count(Kind kind, Date day, String key) {
+        HashMap<String, Long> bucket = counts.get(kind).get(DAY_FORMAT.format(day));
+        Long count = bucket != null ? bucket.get(key) : null;
+        return count != null ? count : 0;
+    }
+
+    public synchronized LinkedHashMap<String, Long> query(Kind kind, Date from, Date to) {
+        // Sum the buckets in range, then sort by count with the highest first
+        HashMap<String, Long> totals = new HashMap<>();
+        for (HashMap<String, Long> bucket : counts.get(kind)
+                .subMap(DAY_FORMAT.format(from), true, DAY_FORMAT.format(to), true)
+                .values()) {
+            bucket.forEach((key, count) -> totals.merge(key, count, Long::sum));
+        }
+
+        LinkedHashMap<String, Long> sorted = new LinkedHashMap<>();
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    public synchronized void save() throws IOException {
+        AtomicFiles.write(file, stream -> {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            out.println(stamp());
+            counts.forEach((kind, days) -> days.forEach((day, bucket) -> bucket.forEach((key, count) ->
+                    out.println(kind + "\t" + day + "\t" + count + "\t" + key))));
+            out.flush();
+        });
+    }
+
+    private boolean read() {
+        if (!file.exists())
+            return false;
+
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!stamp().equals(in.readLine()))
+                return false;
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                counts.get(Kind.valueOf(fields[0]))
+                        .computeIfAbsent(fields[1], day -> new HashMap<>())
+                        .put(fields[3], Long.parseLong(fields[2]));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            for (TreeMap<String, HashMap<String, Long>> days : counts.values())
+                days.clear();
+            return false;
+        }
+    }
+
+    private void rebuild() throws IOException {
+        try (CsvHistory favorites = new CsvHistory(favoritesCsv)) {
+            for (CSVRecord record : favorites)
+                recordFavorite(record.get(FavWriter.Headers.Timestamp), record.get(FavWriter.Headers.User));
+        }
+        try (CsvHistory shouts = new CsvHistory(shoutsCsv)) {
+            for (CSVRecord record : shouts)
+                recordShout(
+                        record.get(ShoutWriter.Headers.Timestamp),
+                        record.get(ShoutWriter.Headers.User),
+                        record.get(ShoutWriter.Headers.Group),
+                        // Logs from before accounts were recorded have no such column
+                        record.isSet(ShoutWriter.Headers.Account.name()) ? record.get(ShoutWriter.Headers.Account) : "");
+        }
+    }
+
+    private String stamp() throws IOException {
+        // Identifies the state of the logs the index was saved against
+        StringBuilder stamp = new StringBuilder("#");
+        for (File log : new File[]{favoritesCsv, shoutsCsv}) {
+            for (File segment : new CsvHistory(log).getSegments())
+                stamp.append(segment.getName()).append(':').append(segment.length()).append(' ');
+        }
+        return stamp.toString().trim();
+    }
+
+    private void increment(Kind kind, String day, String key) {
+        counts.get(kind).computeIfAbsent(day, d -> new HashMap<>()).merge(key, 1L, Long::sum);
+    }
+
+    private static String day(String timestamp) {
+        return timestamp.length() >= DAY_LENGTH ? timestamp.substring(0, DAY_LENGTH) : timestamp;
+    }
+}
@@ -0,0 +1,62 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class HistoryReport {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int DEFAULT_LIMIT = 20;
+
+    // Usage: HistoryReport <favorites|shouts|groups|accounts> [days] [limit]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HistoryReport <favorites|shouts|groups|accounts> [days] [limit]");
+            System.exit(1);
+        }
+
+        HistoryIndex.Kind kind;
+        switch (args[0]) {
+            case "favorites":
+                kind = HistoryIndex.Kind.FavoritesByUser;
+                break;
+            case "shouts":
+                kind = HistoryIndex.Kind.ShoutsByUser;
+                break;
+            case "groups":
+                kind = HistoryIndex.Kind.ShoutsByGroup;
+                break;
+            case "accounts":
+                kind = HistoryIndex.Kind.ShoutsByAccount;
+                break;
+            default:
+                System.err.println("Unknown report " + args[0]);
+                System.exit(1);
+                return;
+        }
+
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DAYS;
+        int limit = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_LIMIT;
+
+        HistoryIndex index = HistoryIndex.load(
+                new File(Constants.HISTORY_INDEX_FILENAME),
+                new File(Constants.FAVORITES_CSV_FILENAME),
+                new File(Constants.SHOUTS_CSV_FILENAME));
+
+        // Report on the last given number of days including today
+        Date to = new Date();
+        Date from = new Date(to.getTime() - TimeUnit.DAYS.toMillis(days - 1));
+
+        int printed = 0;
+        for (Map.Entry<String, Long> entry : index.query(kind, from, to).entrySet()) {
+            if (printed++ == limit)
+                break;
+            System.out.println(entry.getValue() + "\t" + entry.getKey());
+        }
+
+        // Keep the index so the next report does not have to rebuild it
+        index.save();
+    }
+}
@@ -0,0 +1,100 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+abstract class MarkupReader implements Closeable {
+
+    // Longest value we are willing to read before treating the entry as malformed
+    private static final int MAX_FIELD_LENGTH = 4096;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+
+    MarkupReader(InputStream in, Charset charset) {
+        this.reader = new InputStreamReader(in, charset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    boolean skipPast(String marker, int[] table) throws IOException {
+        // Knuth-Morris-Pratt search so that no input is ever re-read
+        int matched = 0;
+        while (fill()) {
+            while (position < limit) {
+                char c = buffer[position++];
+                while (matched > 0 && c != marker.charAt(matched))
+                    matched = table[matched - 1];
+                if (c == marker.charAt(matched) && ++matched == marker.length())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    boolean expect(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (!fill() || buffer[position] != literal.charAt(i))
+                return false;
+            position++;
+        }
+        return true;
+    }
+
+    String readUntil(char delimiter) throws IOException {
+        CharSequence value = readFieldUntil(delimiter);
+        return value != null ? value.toString() : null;
+    }
+
+    CharSequence readFieldUntil(char delimiter) throws IOException {
+        // The returned characters are only valid until the next read
+        field.setLength(0);
+        while (fill()) {
+            int start = position;
+            while (position < limit && buffer[position] != delimiter)
+                position++;
+            field.append(buffer, start, position - start);
+
+            if (field.length() > MAX_FIELD_LENGTH)
+                return null;
+            if (position < limit)
+                return field;
+        }
+        return null;
+    }
+
+    static int[] buildTable(String marker) {
+        int[] table = new int[marker.length()];
+        for (int i = 1, k = 0; i < marker.length(); i++) {
+            while (k > 0 && marker.charAt(i) != marker.charAt(k))
+                k = table[k - 1];
+            if (marker.charAt(i) == marker.charAt(k))
+                k++;
+            table[i] = k;
+        }
+        return table;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit)
+            return true;
+
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0)
+            return false;
+
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
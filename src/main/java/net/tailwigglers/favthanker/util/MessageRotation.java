@@ -0,0 +1,61 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class MessageRotation {
+
+    private final File file;
+
+    // Hash of the last message each user got, keyed by normalized name
+    private final HashMap<String, Integer> lastMessage = new HashMap<>();
+    private boolean changed;
+
+    public MessageRotation(File file) {
+        this.file = file;
+
+        if (file.exists()) {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length == 2)
+                        lastMessage.put(fields[0], Integer.parseUnsignedInt(fields[1], 16));
+                }
+            } catch (IOException | NumberFormatException e) {
+                lastMessage.clear();
+            }
+        }
+    }
+
+    public synchronized MessageTemplate next(String user, List<MessageTemplate> templates) {
+        String key = Group.normalizeUser(user);
+        Integer last = lastMessage.get(key);
+
+        // Pick at random, but never the message this user got last time unless it is the only one
+        int size = templates.size();
+        int index = ThreadLocalRandom.current().nextInt(size);
+        if (last != null && size > 1 && templates.get(index).getSource().hashCode() == last)
+            index = (index + 1 + ThreadLocalRandom.current().nextInt(size - 1)) % size;
+
+        MessageTemplate template = templates.get(index);
+        lastMessage.put(key, template.getSource().hashCode());
+        changed = true;
+        return template;
+    }
+
+    public synchronized void save() throws IOException {
+        if (!changed)
+            return;
+
+        StringBuilder text = new StringBuilder();
+        for (HashMap.Entry<String, Integer> entry : lastMessage.entrySet())
+            text.append(entry.getKey()).append('\t').append(Integer.toHexString(entry.getValue())).append('\n');
+        AtomicFiles.write(file, text.toString());
+        changed = false;
+    }
+}
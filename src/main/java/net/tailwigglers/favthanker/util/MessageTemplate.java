@@ -0,0 +1,80 @@
+package net.tailwigglers.favthanker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessageTemplate {
+
+    private static final String USER = "{user}";
+    private static final String FAV_COUNT = "{favcount}";
+
+    // Placeholders in the compiled parts, everything else is literal text
+    private static final Object USER_PART = new Object();
+    private static final Object FAV_COUNT_PART = new Object();
+
+    private final String source;
+    private final Object[] parts;
+    private final int literalLength;
+
+    private MessageTemplate(String source, Object[] parts, int literalLength) {
+        this.source = source;
+        this.parts = parts;
+        this.literalLength = literalLength;
+    }
+
+    public static MessageTemplate compile(String source) {
+        // Split the text at placeholders once, unknown braces are kept as they are
+        ArrayList<Object> parts = new ArrayList<>();
+        int literalLength = 0;
+        int start = 0;
+        int i = source.indexOf('{');
+        while (i >= 0) {
+            Object placeholder = source.startsWith(USER, i) ? USER_PART
+                    : source.startsWith(FAV_COUNT, i) ? FAV_COUNT_PART
+                    : null;
+            if (placeholder != null) {
+                if (i > start) {
+                    parts.add(source.substring(start, i));
+                    literalLength += i - start;
+                }
+                parts.add(placeholder);
+                start = i + (placeholder == USER_PART ? USER.length() : FAV_COUNT.length());
+            }
+            i = source.indexOf('{', placeholder != null ? start : i + 1);
+        }
+        if (start < source.length()) {
+            parts.add(source.substring(start));
+            literalLength += source.length() - start;
+        }
+
+        return new MessageTemplate(source, parts.toArray(), literalLength);
+    }
+
+    public static ArrayList<MessageTemplate> compileAll(List<String> sources) {
+        ArrayList<MessageTemplate> templates = new ArrayList<>(sources.size());
+        for (String source : sources)
+            templates.add(compile(source));
+        return templates;
+    }
+
+    public String render(String user, int favCount) {
+        // Plain messages are returned as they are
+        if (parts.length == 1 && parts[0] instanceof String)
+            return (String) parts[0];
+
+        StringBuilder sb = new StringBuilder(literalLength + 16);
+        for (Object part : parts) {
+            if (part == USER_PART)
+                sb.append(user);
+            else if (part == FAV_COUNT_PART)
+                sb.append(favCount);
+            else
+                sb.append((String) part);
+        }
+        return sb.toString();
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
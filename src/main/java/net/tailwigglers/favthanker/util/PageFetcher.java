@@ -0,0 +1,64 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+
+public class PageFetcher {
+
+    private final WebClient webClient;
+    private final ResponseCache cache;
+
+    public PageFetcher(WebClient webClient, ResponseCache cache) {
+        this.webClient = webClient;
+        this.cache = cache;
+    }
+
+    public WebResponse getCached(String url) throws IOException {
+        // Only pages the cache rules allow are ever found here
+        return cache.get(new URL(url));
+    }
+
+    public void remember(String url, WebResponse response) throws IOException {
+        // Kept under the address that was asked for, which is also what getCached looks up
+        cache.put(new URL(url), response);
+    }
+
+    public void invalidate(String url) throws IOException {
+        cache.invalidate(new URL(url));
+    }
+
+    public WebResponse get(String url) throws IOException {
+        // The web client adds its usual headers and cookies and follows redirects, but builds no DOM
+        return webClient.loadWebResponse(new WebRequest(new URL(url), HttpMethod.GET));
+    }
+
+    public WebResponse stream(String url) throws IOException {
+        // Only as much of the body is downloaded as is read, reading it a second time downloads the rest
+        WebConnection connection = webClient.getWebConnection();
+        if (connection instanceof StreamingWebConnection)
+            return ((StreamingWebConnection) connection).streaming(() -> get(url));
+        return get(url);
+    }
+
+    public WebResponse post(String url, List<NameValuePair> parameters) throws IOException {
+        // Submit form fields without loading the page that holds the form, a redirect after it is read with a GET
+        WebRequest request = new WebRequest(new URL(url), HttpMethod.POST);
+        request.setRequestParameters(parameters);
+        request.setAdditionalHeader("Referer", url);
+        return webClient.loadWebResponse(request);
+    }
+
+    public HtmlPage toPage(WebResponse response) throws IOException {
+        // Only build the DOM of an already fetched response when a form has to be submitted
+        return (HtmlPage) webClient.loadWebResponseInto(response, webClient.getCurrentWindow());
+    }
+}
@@ -0,0 +1,82 @@
+package net.tailwigglers.favthanker.util;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class Profile {
+
+    private String username;
+    private ArrayList<MessageTemplate> messages = new ArrayList<>();
+    private ArrayList<Group> groups = new ArrayList<>();
+    private HashMap<String, Group> groupIndex = new HashMap<>();
+
+    public static Profile load(File userFile) throws Exception {
+        Profile profile = new Profile();
+
+        // Create JSON object, user files are UTF-8 whatever the platform default is
+        Object obj;
+        try (Reader reader = new InputStreamReader(new FileInputStream(userFile), StandardCharsets.UTF_8)) {
+            obj = new JSONParser().parse(reader);
+        }
+        JSONObject jo = (JSONObject) obj;
+
+        // Store data, compiling messages once so shouts only fill in the placeholders
+        profile.username = (String) jo.get("username");
+        JSONArray ja = (JSONArray) jo.get("messages");
+        for (Object message : ja) {
+            profile.messages.add(MessageTemplate.compile((String) message));
+        }
+
+        // Store group info
+        JSONObject groups = (JSONObject) jo.get("groups");
+        groups.forEach((Object groupName, Object group) -> {
+            ArrayList<String> users = new ArrayList<>();
+            ArrayList<String> messages = new ArrayList<>();
+
+            JSONObject jGroup = (JSONObject) group;
+            JSONArray jUsers = (JSONArray) jGroup.get("users");
+            JSONArray jMessages = (JSONArray) jGroup.get("messages");
+
+            for (Object user : jUsers)
+                users.add((String) user);
+
+            for (Object message : jMessages)
+                messages.add((String) message);
+
+            profile.groups.add(new Group((String) groupName, users, messages));
+        });
+
+        // Index users by normalized name, the first group a user appears in wins
+        for (Group group : profile.groups) {
+            for (String user : group.getUsers())
+                profile.groupIndex.putIfAbsent(Group.normalizeUser(user), group);
+        }
+
+        return profile;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public ArrayList<MessageTemplate> getMessages() {
+        return messages;
+    }
+
+    public ArrayList<Group> getGroups() {
+        return groups;
+    }
+
+    public HashMap<String, Group> getGroupIndex() {
+        return groupIndex;
+    }
+}
@@ -0,0 +1,130 @@
+package net.tailwigglers.favthanker.util;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class ProgressReporter {
+
+    public static class Progress {
+        public final long current;
+        public final long max;
+        public final double perMinute;
+        public final long etaMillis;
+
+        Progress(long current, long max, double perMinute, long etaMillis) {
+            this.current = current;
+            this.max = max;
+            this.perMinute = perMinute;
+            this.etaMillis = etaMillis;
+        }
+
+        public double getFraction() {
+            return max > 0 ? (double) current / max : 0;
+        }
+
+        @Override
+        public String toString() {
+            // Throughput and time left are only shown once there is something to go on
+            String text = current + "/" + max;
+            if (perMinute > 0)
+                text += String.format(Locale.ROOT, " (%.1f/min", perMinute)
+                        + (etaMillis >= 0 ? ", " + DurationFormatUtils.formatDuration(etaMillis, "H:mm:ss") + " left" : "")
+                        + ")";
+            return text;
+        }
+    }
+
+    // Delivers held back updates once the interval has passed, shared by all reporters
+    private static final ScheduledExecutorService TRAILING = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "favthanker-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor dispatcher;
+    private final long minIntervalMillis;
+    private final Consumer<Progress> sink;
+
+    // Only the newest update is kept, anything older is dropped before it reaches the sink
+    private final AtomicReference<Progress> latest = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile Progress delivered;
+
+    private long startMillis;
+    private long startCount = -1;
+    private long startTotal;
+    private long lastReportMillis;
+    private boolean trailing;
+
+    public ProgressReporter(Executor dispatcher, long minIntervalMillis, Consumer<Progress> sink) {
+        this.dispatcher = dispatcher;
+        this.minIntervalMillis = minIntervalMillis;
+        this.sink = sink;
+    }
+
+    public synchronized void update(double current, double max) {
+        long now = System.currentTimeMillis();
+        long done = (long) current;
+        long total = (long) max;
+
+        // Measure the rate from the first update of a run, favorites resumed from an earlier run don't count
+        if (startCount < 0 || done < startCount || total != startTotal) {
+            startCount = done;
+            startTotal = total;
+            startMillis = now;
+        }
+        double perMinute = 0;
+        long eta = -1;
+        long elapsed = now - startMillis;
+        if (elapsed > 0 && done > startCount) {
+            perMinute = (done - startCount) * (double) TimeUnit.MINUTES.toMillis(1) / elapsed;
+            eta = (long) ((total - done) / perMinute * TimeUnit.MINUTES.toMillis(1));
+        }
+        latest.set(new Progress(done, total, perMinute, eta));
+
+        // Hold back updates that come faster than the sink can use them, except the last one,
+        // and deliver the newest of them when the interval is over so a stalled run still shows it
+        if (done < total && now - lastReportMillis < minIntervalMillis) {
+            if (!trailing) {
+                trailing = true;
+                TRAILING.schedule(this::deliverTrailing, lastReportMillis + minIntervalMillis - now, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        lastReportMillis = now;
+        dispatch();
+    }
+
+    public void flush() {
+        Progress progress = latest.get();
+        if (progress != null && progress != delivered)
+            dispatch();
+    }
+
+    private void deliverTrailing() {
+        synchronized (this) {
+            trailing = false;
+            lastReportMillis = System.currentTimeMillis();
+        }
+        flush();
+    }
+
+    private void dispatch() {
+        // At most one delivery is in flight, and it carries whatever is newest when it runs
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> {
+                scheduled.set(false);
+                delivered = latest.get();
+                sink.accept(delivered);
+            });
+        }
+    }
+}
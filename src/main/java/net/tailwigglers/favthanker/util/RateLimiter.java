@@ -0,0 +1,22 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+public interface RateLimiter {
+
+    // Blocks until a page may be read
+    void acquireRead() throws InterruptedException;
+
+    // Blocks until a shout may be submitted
+    void acquireWrite() throws InterruptedException;
+
+    // Blocks until a shout could be submitted, without using up the slot
+    void awaitWrite() throws InterruptedException;
+
+    // Reports a finished request so the pace can adapt to how the site responds
+    void record(WebResponse response, boolean write);
+
+    static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+}
@@ -0,0 +1,226 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class ResponseCache {
+
+    private static final String USER_PAGE_PATH = "/user/";
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_EXTENSION = ".entry";
+
+    // Marks responses that were served from the cache
+    private static class CachedResponse extends WebResponse {
+        private static final long serialVersionUID = 1L;
+
+        CachedResponse(WebResponseData data, URL url) {
+            super(data, new WebRequest(url, HttpMethod.GET), 0);
+        }
+    }
+
+    private static class Entry {
+        final File file;
+        final long expires;
+        final long size;
+
+        Entry(File file, long expires, long size) {
+            this.file = file;
+            this.expires = expires;
+            this.size = size;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final long userPageTtlMillis;
+    private final RunMetrics metrics;
+
+    // Least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ResponseCache(File directory, long maxBytes, long userPageTtlMinutes, RunMetrics metrics) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.userPageTtlMillis = TimeUnit.MINUTES.toMillis(userPageTtlMinutes);
+        this.metrics = metrics;
+
+        // Pick up entries from earlier runs in the order they were last used, broken or expired ones are dropped
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (files == null)
+            return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() != FORMAT_VERSION)
+                    throw new IOException("Unknown cache entry");
+                long expires = in.readLong();
+                String url = in.readUTF();
+                if (expires > now) {
+                    entries.put(url, new Entry(file, expires, file.length()));
+                    totalBytes += file.length();
+                    continue;
+                }
+            } catch (IOException e) {
+                // Fall through and delete it
+            }
+            file.delete();
+        }
+        evict();
+    }
+
+    public static ResponseCache fromProperties(File directory, Properties props, RunMetrics metrics) {
+        return new ResponseCache(directory,
+                Long.parseLong(props.getProperty(Constants.RESPONSE_CACHE_MAX_MB, Constants.DEFAULT_RESPONSE_CACHE_MAX_MB))
+                        * 1024 * 1024,
+                Long.parseLong(props.getProperty(Constants.USER_PAGE_CACHE_MINUTES, Constants.DEFAULT_USER_PAGE_CACHE_MINUTES)),
+                metrics);
+    }
+
+    public static boolean isHit(WebResponse response) {
+        return response instanceof CachedResponse;
+    }
+
+    public synchronized WebResponse get(URL url) {
+        if (ttlFor(url) <= 0)
+            return null;
+
+        String key = url.toExternalForm();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expires <= System.currentTimeMillis()) {
+            if (entry != null)
+                remove(key);
+            metrics.recordCacheMiss();
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entry.file)))) {
+            in.readInt();
+            in.readLong();
+            in.readUTF();
+            int status = in.readInt();
+            String message = in.readUTF();
+            int headerCount = in.readInt();
+            List<NameValuePair> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++)
+                headers.add(new NameValuePair(in.readUTF(), in.readUTF()));
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+
+            // Keep the order of use across runs
+            entry.file.setLastModified(System.currentTimeMillis());
+            metrics.recordCacheHit();
+            return new CachedResponse(new WebResponseData(body, status, message, headers), url);
+        } catch (IOException e) {
+            remove(key);
+            metrics.recordCacheMiss();
+            return null;
+        }
+    }
+
+    public synchronized void put(URL url, WebResponse response) throws IOException {
+        // Only complete reads of pages the rules allow, stored under the address they were asked for
+        long ttl = ttlFor(url);
+        if (ttl <= 0 || response.getStatusCode() != 200 || isHit(response))
+            return;
+
+        String key = url.toExternalForm();
+        long expires = System.currentTimeMillis() + ttl;
+        File file = new File(directory, fileName(key));
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+
+        byte[] body;
+        try (InputStream content = response.getContentAsStream()) {
+            body = IOUtils.toByteArray(content);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(expires);
+            out.writeUTF(key);
+            out.writeInt(response.getStatusCode());
+            out.writeUTF(response.getStatusMessage());
+
+            // Session cookies stay out of the cache
+            List<NameValuePair> headers = new ArrayList<>();
+            for (NameValuePair header : response.getResponseHeaders()) {
+                if (!header.getName().equalsIgnoreCase("Set-Cookie"))
+                    headers.add(header);
+            }
+            out.writeInt(headers.size());
+            for (NameValuePair header : headers) {
+                out.writeUTF(header.getName());
+                out.writeUTF(header.getValue());
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        }
+
+        Entry previous = entries.put(key, new Entry(file, expires, file.length()));
+        if (previous != null)
+            totalBytes -= previous.size;
+        totalBytes += file.length();
+        evict();
+    }
+
+    public synchronized void invalidate(URL url) {
+        remove(url.toExternalForm());
+    }
+
+    private long ttlFor(URL url) {
+        String path = url.getPath().toLowerCase(Locale.ROOT);
+        if (path.startsWith(USER_PAGE_PATH))
+            return userPageTtlMillis;
+        return 0;
+    }
+
+    private void evict() {
+        // Drop the least recently used entries until the cache fits again
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            it.remove();
+            totalBytes -= entry.size;
+            entry.file.delete();
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size;
+            entry.file.delete();
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest)) + ENTRY_EXTENSION;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.tailwigglers.favthanker.util;
+
+import java.util.Calendar;
+import java.util.Properties;
+
+public class Rotation {
+
+    public enum Mode {
+        None, Daily, Size
+    }
+
+    public static final Rotation NONE = new Rotation(Mode.None, 0);
+
+    private final Mode mode;
+    private final long maxBytes;
+
+    public Rotation(Mode mode, long maxBytes) {
+        this.mode = mode;
+        this.maxBytes = maxBytes;
+    }
+
+    public static Rotation fromProperties(Properties props) {
+        String mode = props.getProperty(Constants.CSV_ROTATION, Mode.None.name());
+        long maxBytes = Long.parseLong(props.getProperty(
+                Constants.CSV_ROTATION_MAX_BYTES,
+                Constants.DEFAULT_CSV_ROTATION_MAX_BYTES));
+
+        for (Mode value : Mode.values()) {
+            if (value.name().equalsIgnoreCase(mode))
+                return new Rotation(value, maxBytes);
+        }
+        return NONE;
+    }
+
+    public boolean isDue(long size, long openedMillis, long nowMillis) {
+        switch (mode) {
+            case Daily:
+                return size > 0 && day(openedMillis) != day(nowMillis);
+            case Size:
+                return size >= maxBytes;
+            default:
+                return false;
+        }
+    }
+
+    private static long day(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return calendar.get(Calendar.YEAR) * 1000L + calendar.get(Calendar.DAY_OF_YEAR);
+    }
+}
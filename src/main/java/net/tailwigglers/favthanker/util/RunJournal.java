@@ -0,0 +1,101 @@
+package net.tailwigglers.favthanker.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class RunJournal {
+
+    public enum Outcome {
+        Shouted, Skipped, Disabled
+    }
+
+    private final File file;
+
+    // One entry per finished shoutee, with the notification IDs it covered
+    private final ArrayList<String[]> entries = new ArrayList<>();
+    private final HashSet<String> doneIds = new HashSet<>();
+
+    public RunJournal(File file) {
+        this.file = file;
+
+        // Replay what an interrupted run already finished, ignoring a torn last line
+        if (file.exists()) {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length == 3)
+                        add(fields);
+                }
+            } catch (IOException e) {
+                entries.clear();
+                doneIds.clear();
+            }
+        }
+    }
+
+    public synchronized boolean isDone(String favoriteId) {
+        return doneIds.contains(favoriteId);
+    }
+
+    public synchronized void record(Outcome outcome, String user, List<String> favoriteIds) throws IOException {
+        String[] entry = {outcome.name(), user, String.join(",", favoriteIds)};
+        add(entry);
+
+        // Append and sync right away so a crash cannot lose a finished shoutee
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write((String.join("\t", entry) + "\n").getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized void compact(Collection<String> clearedIds) throws IOException {
+        // Forget notifications that have been cleared on FA
+        rewrite(id -> !clearedIds.contains(id));
+    }
+
+    public synchronized void retain(Collection<String> pendingIds) throws IOException {
+        // Forget notifications that are gone from FA, e.g. cleared just before a crash
+        rewrite(pendingIds::contains);
+    }
+
+    private void rewrite(Predicate<String> keep) throws IOException {
+        doneIds.removeIf(keep.negate());
+        ArrayList<String[]> remaining = new ArrayList<>();
+        for (String[] entry : entries) {
+            List<String> ids = new ArrayList<>(Arrays.asList(entry[2].split(",")));
+            ids.removeIf(keep.negate());
+            if (!ids.isEmpty())
+                remaining.add(new String[]{entry[0], entry[1], String.join(",", ids)});
+        }
+        entries.clear();
+        entries.addAll(remaining);
+
+        if (entries.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (String[] entry : entries)
+            text.append(String.join("\t", entry)).append('\n');
+        AtomicFiles.write(file, text.toString());
+    }
+
+    private void add(String[] entry) {
+        entries.add(entry);
+        doneIds.addAll(Arrays.asList(entry[2].split(",")));
+    }
+}
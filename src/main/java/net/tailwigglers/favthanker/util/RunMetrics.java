@@ -0,0 +1,249 @@
+package net.tailwigglers.favthanker.util;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class RunMetrics implements RunMetricsMBean {
+
+    public enum Phase {
+        Fetch, Parse, Submit, Verify, Wait, Login
+    }
+
+    public static final String OBJECT_NAME = "net.tailwigglers.favthanker:type=RunMetrics";
+
+    // Upper bounds of the histogram buckets in milliseconds, the last bucket holds everything slower
+    private static final long[] BUCKET_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 20000, 50000};
+
+    private final EnumMap<Phase, AtomicLongArray> histograms = new EnumMap<>(Phase.class);
+    private final EnumMap<Phase, AtomicLong> totalMillis = new EnumMap<>(Phase.class);
+    private final AtomicLong shouts = new AtomicLong();
+    private final AtomicLong skips = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong slowResponses = new AtomicLong();
+    private final AtomicLong rateLimitWaitMillis = new AtomicLong();
+    private volatile double backoff = 1.0;
+    private volatile long startMillis = System.currentTimeMillis();
+
+    public RunMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new AtomicLongArray(BUCKET_MILLIS.length + 1));
+            totalMillis.put(phase, new AtomicLong());
+        }
+    }
+
+    public boolean register() {
+        // Metrics are a nice to have, the run goes on without them
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    public void record(Phase phase, long startNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_MILLIS.length && millis > BUCKET_MILLIS[bucket])
+            bucket++;
+        histograms.get(phase).incrementAndGet(bucket);
+        totalMillis.get(phase).addAndGet(millis);
+    }
+
+    public void recordShout() {
+        shouts.incrementAndGet();
+    }
+
+    public void recordSkip() {
+        skips.incrementAndGet();
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public void recordCacheMiss() {
+        cacheMisses.incrementAndGet();
+    }
+
+    public void recordRead() {
+        reads.incrementAndGet();
+    }
+
+    public void recordWrite() {
+        writes.incrementAndGet();
+    }
+
+    public void recordThrottled() {
+        throttled.incrementAndGet();
+    }
+
+    public void recordSlowResponse() {
+        slowResponses.incrementAndGet();
+    }
+
+    public void recordRateLimitWait(long millis) {
+        rateLimitWaitMillis.addAndGet(millis);
+    }
+
+    public void recordBackoff(double backoff) {
+        this.backoff = backoff;
+    }
+
+    @Override
+    public long getShouts() {
+        return shouts.get();
+    }
+
+    @Override
+    public long getSkips() {
+        return skips.get();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    @Override
+    public long getReads() {
+        return reads.get();
+    }
+
+    @Override
+    public long getWrites() {
+        return writes.get();
+    }
+
+    @Override
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public long getSlowResponses() {
+        return slowResponses.get();
+    }
+
+    @Override
+    public long getRateLimitWaitMillis() {
+        return rateLimitWaitMillis.get();
+    }
+
+    @Override
+    public double getBackoff() {
+        return backoff;
+    }
+
+    @Override
+    public double getShoutsPerMinute() {
+        long elapsed = System.currentTimeMillis() - startMillis;
+        return elapsed > 0 ? shouts.get() * (double) TimeUnit.MINUTES.toMillis(1) / elapsed : 0;
+    }
+
+    @Override
+    public String[] getPhaseSummaries() {
+        // One line per phase, percentiles are the upper bound of the bucket they fall in
+        String[] summaries = new String[Phase.values().length];
+        for (Phase phase : Phase.values()) {
+            long[] counts = snapshot(phase);
+            long count = 0;
+            for (long bucketCount : counts)
+                count += bucketCount;
+            long total = totalMillis.get(phase).get();
+
+            summaries[phase.ordinal()] = String.format(Locale.ROOT,
+                    "%s count=%d total=%dms mean=%dms p50=%s p90=%s p99=%s",
+                    phase, count, total, count > 0 ? total / count : 0,
+                    percentile(counts, count, 0.50),
+                    percentile(counts, count, 0.90),
+                    percentile(counts, count, 0.99));
+        }
+        return summaries;
+    }
+
+    @Override
+    public String[] getBucketLabels() {
+        String[] labels = new String[BUCKET_MILLIS.length + 1];
+        for (int i = 0; i < BUCKET_MILLIS.length; i++)
+            labels[i] = "<=" + BUCKET_MILLIS[i] + "ms";
+        labels[BUCKET_MILLIS.length] = ">" + BUCKET_MILLIS[BUCKET_MILLIS.length - 1] + "ms";
+        return labels;
+    }
+
+    @Override
+    public long[] getHistogram(String phase) {
+        for (Phase candidate : Phase.values()) {
+            if (candidate.name().equalsIgnoreCase(phase))
+                return snapshot(candidate);
+        }
+        throw new IllegalArgumentException("Unknown phase " + phase);
+    }
+
+    @Override
+    public void reset() {
+        for (Phase phase : Phase.values()) {
+            AtomicLongArray histogram = histograms.get(phase);
+            for (int i = 0; i < histogram.length(); i++)
+                histogram.set(i, 0);
+            totalMillis.get(phase).set(0);
+        }
+        shouts.set(0);
+        skips.set(0);
+        failures.set(0);
+        cacheHits.set(0);
+        cacheMisses.set(0);
+        reads.set(0);
+        writes.set(0);
+        throttled.set(0);
+        slowResponses.set(0);
+        rateLimitWaitMillis.set(0);
+        startMillis = System.currentTimeMillis();
+    }
+
+    private long[] snapshot(Phase phase) {
+        AtomicLongArray histogram = histograms.get(phase);
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = histogram.get(i);
+        return counts;
+    }
+
+    private static String percentile(long[] counts, long count, double fraction) {
+        if (count == 0)
+            return "-";
+        long rank = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_MILLIS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return "<=" + BUCKET_MILLIS[i] + "ms";
+        }
+        return ">" + BUCKET_MILLIS[BUCKET_MILLIS.length - 1] + "ms";
+    }
+}
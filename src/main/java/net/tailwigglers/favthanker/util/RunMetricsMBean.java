@@ -0,0 +1,36 @@
+package net.tailwigglers.favthanker.util;
+
+public interface RunMetricsMBean {
+
+    long getShouts();
+
+    long getSkips();
+
+    long getFailures();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getReads();
+
+    long getWrites();
+
+    long getThrottled();
+
+    long getSlowResponses();
+
+    long getRateLimitWaitMillis();
+
+    double getBackoff();
+
+    double getShoutsPerMinute();
+
+    String[] getPhaseSummaries();
+
+    String[] getBucketLabels();
+
+    long[] getHistogram(String phase);
+
+    void reset();
+}
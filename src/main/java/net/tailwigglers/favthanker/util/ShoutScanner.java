@@ -0,0 +1,92 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Set;
+
+public class ShoutScanner extends MarkupReader {
+
+    // Avatars only appear next to shouts, e.g. <img class="comment_useravatar" src="..." alt="name" />
+    private static final String AVATAR_MARKER = "class=\"comment_useravatar\"";
+    private static final String ALT_MARKER = "alt=\"";
+
+    private static final int[] AVATAR_MARKER_TABLE = buildTable(AVATAR_MARKER);
+
+    // Where the name sits in the tag returned by nextAvatar
+    private int altStart;
+    private int altEnd;
+
+    public ShoutScanner(InputStream in, Charset charset) {
+        super(in, charset);
+    }
+
+    public static boolean hasShoutBy(WebResponse response, Set<String> normalizedUsers) throws IOException {
+        try (ShoutScanner scanner = new ShoutScanner(response.getContentAsStream(), response.getContentCharset())) {
+            return scanner.findAuthor(normalizedUsers) != null;
+        }
+    }
+
+    public String findAuthor(Set<String> normalizedUsers) throws IOException {
+        // Stop at the first shout by one of the users, the rest of the page is never read,
+        // and names are compared where they are read so only a match is ever copied
+        CharSequence tag;
+        while ((tag = nextAvatar()) != null) {
+            for (String user : normalizedUsers) {
+                if (matchesNormalized(tag, altStart, altEnd, user))
+                    return tag.subSequence(altStart, altEnd).toString();
+            }
+        }
+        return null;
+    }
+
+    private CharSequence nextAvatar() throws IOException {
+        while (skipPast(AVATAR_MARKER, AVATAR_MARKER_TABLE)) {
+            // The name is in the alt attribute of the same tag, a tag too long to read is passed over
+            CharSequence tag = readFieldUntil('>');
+            if (tag == null)
+                continue;
+
+            int start = indexOf(tag, ALT_MARKER);
+            if (start < 0)
+                continue;
+            start += ALT_MARKER.length();
+            int end = start;
+            while (end < tag.length() && tag.charAt(end) != '"')
+                end++;
+            if (end > start && end < tag.length()) {
+                altStart = start;
+                altEnd = end;
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(CharSequence text, String marker) {
+        for (int i = 0; i + marker.length() <= text.length(); i++) {
+            int j = 0;
+            while (j < marker.length() && text.charAt(i + j) == marker.charAt(j))
+                j++;
+            if (j == marker.length())
+                return i;
+        }
+        return -1;
+    }
+
+    private static boolean matchesNormalized(CharSequence name, int start, int end, String normalized) {
+        // Same as comparing Group.normalizeUser(name), without building the normalized copy
+        int j = 0;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (c == '_')
+                continue;
+            if (j == normalized.length() || Character.toLowerCase(c) != normalized.charAt(j))
+                return false;
+            j++;
+        }
+        return j == normalized.length();
+    }
+}
@@ -1,49 +1,47 @@
 package net.tailwigglers.favthanker.util;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.lang3.time.DateFormatUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Date;
 
 public class ShoutWriter {
 
-    private CSVPrinter printer;
+    private AsyncCsvWriter writer;
+    private HistoryIndex index;
 
     public enum Headers {
-        Timestamp, User, Group, Message, Link
+        Timestamp, User, Group, Message, Link, Account
     }
 
-    public ShoutWriter() throws IOException {
-        File shoutsCsv = new File(Constants.SHOUTS_CSV_FILENAME);
-        if (shoutsCsv.exists()) {
-            printer = new CSVPrinter(
-                    new FileWriter(Constants.SHOUTS_CSV_FILENAME, true),
-                    CSVFormat.DEFAULT);
-        } else {
-            printer = new CSVPrinter(new FileWriter(Constants.SHOUTS_CSV_FILENAME), CSVFormat.DEFAULT);
-            printer.printRecord(
-                    Headers.Timestamp,
-                    Headers.User,
-                    Headers.Group,
-                    Headers.Message,
-                    Headers.Link);
-        }
+    public ShoutWriter(File file, Rotation rotation, HistoryIndex index) throws IOException {
+        this.index = index;
+        writer = new AsyncCsvWriter(
+                file,
+                rotation,
+                Headers.Timestamp,
+                Headers.User,
+                Headers.Group,
+                Headers.Message,
+                Headers.Link,
+                Headers.Account);
     }
 
     public void printShout(String user,
                            String group,
                            String message,
-                           String link) throws IOException {
+                           String link,
+                           String account) throws IOException {
         String timestamp = DateFormatUtils.ISO_8601_EXTENDED_DATETIME_FORMAT.format(new Date());
-        printer.printRecord(timestamp, user, group, message, link);
+        writer.printRecord(timestamp, user, group, message, link, account);
+
+        if (index != null)
+            index.recordShout(timestamp, user, group, account);
     }
 
     public void close() throws IOException {
-        printer.close();
+        writer.close();
     }
 
 }
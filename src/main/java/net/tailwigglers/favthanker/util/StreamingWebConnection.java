@@ -0,0 +1,149 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.DownloadedContent;
+import com.gargoylesoftware.htmlunit.HttpWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class StreamingWebConnection extends HttpWebConnection {
+
+    // Marks requests on this thread whose body is only downloaded as far as it is read
+    private final ThreadLocal<Boolean> streaming = ThreadLocal.withInitial(() -> false);
+
+    public interface Request<T> {
+        T send() throws IOException;
+    }
+
+    // Every reader replays the same buffer and only pulls more from the connection once it reads past it,
+    // so cleaning up early drops the connection without downloading the rest
+    private static class StreamedContent implements DownloadedContent {
+        private static final long serialVersionUID = 1L;
+
+        private final transient InputStream live;
+        private final transient Closeable response;
+        private byte[] buffer = new byte[8192];
+        private int size;
+        private boolean finished;
+
+        StreamedContent(InputStream live, Closeable response) {
+            this.live = live;
+            this.response = response;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private int position;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] single = new byte[1];
+                    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] target, int offset, int length) throws IOException {
+                    int read = copy(position, target, offset, length);
+                    if (read > 0)
+                        position += read;
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public synchronized void cleanUp() {
+            buffer = new byte[0];
+            size = 0;
+            if (!finished) {
+                finished = true;
+                close();
+            }
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            // Asked before every read, so it must not pull in the body; an empty body just reads as empty
+            return finished && size == 0;
+        }
+
+        @Override
+        public synchronized long length() {
+            try {
+                while (!finished)
+                    readMore();
+            } catch (IOException e) {
+                // Report what arrived
+            }
+            return size;
+        }
+
+        private synchronized int copy(int position, byte[] target, int offset, int length) throws IOException {
+            if (length == 0)
+                return 0;
+            while (position >= size && !finished)
+                readMore();
+            if (position >= size)
+                return -1;
+            int count = Math.min(length, size - position);
+            System.arraycopy(buffer, position, target, offset, count);
+            return count;
+        }
+
+        private void readMore() throws IOException {
+            if (size == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            int read;
+            try {
+                read = live.read(buffer, size, buffer.length - size);
+            } catch (IOException e) {
+                finished = true;
+                close();
+                throw e;
+            }
+            if (read < 0) {
+                finished = true;
+                close();
+            } else {
+                size += read;
+            }
+        }
+
+        private void close() {
+            try {
+                response.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    public StreamingWebConnection(WebClient webClient) {
+        super(webClient);
+    }
+
+    public <T> T streaming(Request<T> request) throws IOException {
+        streaming.set(true);
+        try {
+            return request.send();
+        } finally {
+            streaming.set(false);
+        }
+    }
+
+    @Override
+    protected DownloadedContent downloadResponseBody(HttpResponse httpResponse) throws IOException {
+        // Redirects and responses that can't be aborted are read whole as usual
+        HttpEntity entity = httpResponse.getEntity();
+        int status = httpResponse.getStatusLine().getStatusCode();
+        if (!streaming.get() || entity == null || entity.getContentLength() == 0 || (status >= 300 && status < 400) || !(httpResponse instanceof Closeable))
+            return super.downloadResponseBody(httpResponse);
+        return new StreamedContent(entity.getContent(), (Closeable) httpResponse);
+    }
+}
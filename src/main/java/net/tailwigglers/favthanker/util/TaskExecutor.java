@@ -0,0 +1,99 @@
+package net.tailwigglers.favthanker.util;
+
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskExecutor implements Executor {
+
+    private static final String THREAD_PREFIX = "favthanker-worker-";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    public TaskExecutor(int workers, boolean useVirtualThreads) {
+        ExecutorService virtualExecutor = useVirtualThreads ? newVirtualExecutor() : null;
+        virtual = virtualExecutor != null;
+
+        if (virtual) {
+            executor = virtualExecutor;
+        } else {
+            // A fixed number of named daemon workers that go away while idle
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, THREAD_PREFIX + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+    }
+
+    public static TaskExecutor fromProperties(Properties props) {
+        return new TaskExecutor(
+                Integer.parseInt(props.getProperty(Constants.WORKER_THREADS, Constants.DEFAULT_WORKER_THREADS)),
+                Boolean.parseBoolean(props.getProperty(Constants.VIRTUAL_THREADS, Constants.DEFAULT_VIRTUAL_THREADS)));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public Future<?> submit(Runnable task) {
+        return executor.submit(task);
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    public synchronized void ensureWorkers(int workers) {
+        // Long running jobs each hold a worker, so make room for all of them plus the short tasks
+        if (virtual)
+            return;
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        if (pool.getMaximumPoolSize() < workers) {
+            pool.setMaximumPoolSize(workers);
+            pool.setCorePoolSize(workers);
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void shutdown() throws InterruptedException {
+        // Interrupt whatever is still running and give it a moment to wind down
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static ExecutorService newVirtualExecutor() {
+        // Virtual threads only exist on newer JDKs, so look them up instead of linking against them
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
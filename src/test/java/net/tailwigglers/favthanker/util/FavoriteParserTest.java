@@ -0,0 +1,158 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
+import com.gargoylesoftware.htmlunit.html.HtmlInput;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+public class FavoriteParserTest extends TestCase {
+
+    // MarkupReader reads the page in chunks of this many characters
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String HEADER = "<html><body><nav><a class=\"notification-container\" "
+            + "href=\"/msg/others/#favorites\" title=\"Favorites\">%dF</a></nav>\n";
+    private static final String FOOTER = "</ul></form></body></html>\n";
+
+    private static String entry(int i) {
+        // Names with underscores and titles with markup-like and non-ASCII characters, as FA sends them
+        String user = i % 3 == 0 ? "User_" + i : "user" + i;
+        return "<li><div class=\"table\"><input type=\"checkbox\" name=\"favorites[]\" value=\"" + (1_000_000 + i)
+                + "\"><a href=\"/user/" + user.replace("_", "").toLowerCase() + "/\"><strong>" + user
+                + "</strong></a> favorited <a href=\"/view/" + (40_000_000 + i) + "/\"><strong>\"Art &amp; "
+                + (i % 2 == 0 ? "café " : "") + i + "\"</strong></a> "
+                + "<span class=\"popup_date\" title=\"5 hours ago\">on Jan 1st</span></div></li>\n";
+    }
+
+    private static String page(String filler, int count) {
+        StringBuilder sb = new StringBuilder(String.format(HEADER, count)).append(filler)
+                .append("<form method=\"post\" action=\"/msg/others/\"><ul class=\"message-stream\">\n");
+        for (int i = 0; i < count; i++)
+            sb.append(entry(i));
+        return sb.append(FOOTER).toString();
+    }
+
+    private static List<String> parse(String page) throws IOException {
+        List<String> favorites = new ArrayList<>();
+        try (FavoriteParser parser = new FavoriteParser(
+                new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)) {
+            Favorite favorite;
+            while ((favorite = parser.next()) != null)
+                favorites.add(String.join("|", favorite.id, favorite.user, favorite.userLink, favorite.art, favorite.artLink));
+        }
+        return favorites;
+    }
+
+    private static List<String> parseWithPattern(String page) {
+        // The whole-page regex the favorites used to be extracted with
+        List<String> favorites = new ArrayList<>();
+        Matcher matcher = Constants.FAV_PATTERN.matcher(page);
+        while (matcher.find()) {
+            favorites.add(String.join("|", matcher.group(2), matcher.group(6),
+                    Constants.FA_BASE_URL + matcher.group(4), matcher.group(11), Constants.FA_BASE_URL + matcher.group(9)));
+        }
+        return favorites;
+    }
+
+    private static int readCount(String page) throws IOException {
+        try (FavoriteParser parser = new FavoriteParser(
+                new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)) {
+            return parser.readFavoriteCount();
+        }
+    }
+
+    private static HtmlPage load(String page) throws IOException {
+        WebClient webClient = new WebClient();
+        webClient.getOptions().setJavaScriptEnabled(false);
+        webClient.getOptions().setCssEnabled(false);
+        MockWebConnection connection = new MockWebConnection();
+        connection.setDefaultResponse(page);
+        webClient.setWebConnection(connection);
+        return webClient.getPage(Constants.FA_BASE_URL + "msg/others/");
+    }
+
+    private static String filler(int length) {
+        StringBuilder sb = new StringBuilder("<!--");
+        while (sb.length() < length - 3)
+            sb.append('x');
+        return sb.append("-->").toString();
+    }
+
+    public void testMatchesPattern() throws IOException {
+        String page = page("", 200);
+        List<String> expected = parseWithPattern(page);
+        assertEquals(200, expected.size());
+        assertEquals(expected, parse(page));
+    }
+
+    public void testMatchesDom() throws IOException {
+        String page = page("", 40);
+        HtmlPage dom = load(page);
+        try {
+            // Same counter the anchor text used to be read from, minus the F suffix
+            String text = dom.getAnchorByHref("/msg/others/#favorites").getTextContent();
+            assertEquals(Integer.parseInt(text.substring(0, text.length() - 1)), readCount(page));
+
+            List<String> ids = new ArrayList<>();
+            for (Object input : dom.getByXPath("//input[@name='favorites[]']"))
+                ids.add(((HtmlInput) input).getValueAttribute());
+            List<String> parsed = new ArrayList<>();
+            for (String favorite : parse(page))
+                parsed.add(favorite.substring(0, favorite.indexOf('|')));
+            assertEquals(ids, parsed);
+        } finally {
+            dom.getWebClient().close();
+        }
+    }
+
+    public void testEntrySplitAcrossBuffers() throws IOException {
+        // Move the first entry over the end of the first buffer one character at a time,
+        // so every marker and field is cut at every position once
+        int before = String.format(HEADER, 5).length()
+                + "<form method=\"post\" action=\"/msg/others/\"><ul class=\"message-stream\">\n".length();
+        int length = entry(0).length();
+        for (int shift = 0; shift <= length; shift++) {
+            String page = page(filler(BUFFER_SIZE - before - shift), 5);
+            assertEquals("shift " + shift, parseWithPattern(page), parse(page));
+        }
+    }
+
+    public void testCounterSplitAcrossBuffers() throws IOException {
+        for (int shift = 0; shift <= HEADER.length(); shift++) {
+            String page = filler(BUFFER_SIZE - shift) + page("", 12);
+            assertEquals("shift " + shift, 12, readCount(page));
+        }
+    }
+
+    public void testMalformedEntriesAreSkipped() throws IOException {
+        // An ID that is not a number and a link that is not a submission, each followed by a good entry
+        String page = page("", 3)
+                .replace("value=\"1000001\"", "value=\"abc\"")
+                .replace("/view/40000002/", "/journal/40000002/");
+        List<String> expected = parseWithPattern(page);
+        assertEquals(1, expected.size());
+        assertEquals(expected, parse(page));
+    }
+
+    public void testNoCounter() throws IOException {
+        String page = "<html><body><nav><a href=\"/msg/others/\">Messages</a></nav></body></html>";
+        HtmlPage dom = load(page);
+        try {
+            assertTrue(dom.getAnchors().stream().noneMatch(
+                    (HtmlAnchor anchor) -> anchor.getHrefAttribute().equals("/msg/others/#favorites")));
+        } finally {
+            dom.getWebClient().close();
+        }
+        assertEquals(0, readCount(page));
+        assertTrue(parse(page).isEmpty());
+    }
+}
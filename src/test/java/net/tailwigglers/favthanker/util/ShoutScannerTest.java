@@ -0,0 +1,132 @@
+package net.tailwigglers.favthanker.util;
+
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.HtmlImage;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+
+public class ShoutScannerTest extends TestCase {
+
+    // MarkupReader reads the page in chunks of this many characters
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String PROFILE = "<html><body><div class=\"userpage-profile\">Profile text</div>\n";
+    private static final String FOOTER = "<form method=\"post\" action=\"/user/someone/\"><textarea name=\"shout\">"
+            + "</textarea></form></body></html>\n";
+
+    private static final List<String> AUTHORS = Arrays.asList("visitor_one", "VisitorTwo", "someone", "Own_Name", "last");
+
+    private static String avatar(String name) {
+        return "<img class=\"comment_useravatar\" src=\"//a.furaffinity.net/" + name + ".gif\" alt=\"" + name + "\" />";
+    }
+
+    private static String shout(String author, String text) {
+        return "<div class=\"comment_container\"><a href=\"/user/" + author.replace("_", "").toLowerCase() + "/\">"
+                + avatar(author) + "</a><div class=\"comment_text\">" + text + "</div></div>\n";
+    }
+
+    private static String page(String filler, List<String> authors) {
+        StringBuilder sb = new StringBuilder(PROFILE).append(filler);
+        for (int i = 0; i < authors.size(); i++)
+            sb.append(shout(authors.get(i), "Shout number " + i));
+        return sb.append(FOOTER).toString();
+    }
+
+    private static String findAuthor(String page, String normalizedUser) throws IOException {
+        try (ShoutScanner scanner = new ShoutScanner(
+                new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)) {
+            return scanner.findAuthor(Collections.singleton(normalizedUser));
+        }
+    }
+
+    private static List<String> authorsWithPattern(String page) {
+        // The whole-page regex shouts used to be checked with
+        List<String> authors = new ArrayList<>();
+        Matcher matcher = Constants.COMMENT_PATTERN.matcher(page);
+        while (matcher.find())
+            authors.add(matcher.group(6));
+        return authors;
+    }
+
+    private static List<String> authorsInDom(String page) throws IOException {
+        try (WebClient webClient = new WebClient()) {
+            webClient.getOptions().setJavaScriptEnabled(false);
+            webClient.getOptions().setCssEnabled(false);
+            MockWebConnection connection = new MockWebConnection();
+            connection.setDefaultResponse(page);
+            webClient.setWebConnection(connection);
+            HtmlPage dom = webClient.getPage(Constants.FA_BASE_URL + "user/someone/");
+
+            List<String> authors = new ArrayList<>();
+            for (Object image : dom.getByXPath("//img[@class='comment_useravatar']"))
+                authors.add(((HtmlImage) image).getAltAttribute());
+            return authors;
+        }
+    }
+
+    private static String filler(int length) {
+        StringBuilder sb = new StringBuilder("<!--");
+        while (sb.length() < length - 3)
+            sb.append('x');
+        return sb.append("-->").toString();
+    }
+
+    public void testFindsEveryAuthorThePatternFinds() throws IOException {
+        String page = page("", AUTHORS);
+        assertEquals(AUTHORS, authorsWithPattern(page));
+        assertEquals(AUTHORS, authorsInDom(page));
+        for (String author : AUTHORS)
+            assertEquals(author, findAuthor(page, Group.normalizeUser(author)));
+    }
+
+    public void testMatchesNamesLikeFa() throws IOException {
+        // Case and underscores don't matter, anything else does
+        String page = page("", AUTHORS);
+        assertEquals("Own_Name", findAuthor(page, "ownname"));
+        assertEquals("visitor_one", findAuthor(page, "visitorone"));
+        assertNull(findAuthor(page, "ownnam"));
+        assertNull(findAuthor(page, "ownnamex"));
+        assertNull(findAuthor(page, "stranger"));
+    }
+
+    public void testStopsAtFirstOfSeveralUsers() throws IOException {
+        String page = page("", AUTHORS);
+        try (ShoutScanner scanner = new ShoutScanner(
+                new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)) {
+            assertEquals("someone", scanner.findAuthor(new HashSet<>(Arrays.asList("last", "someone"))));
+        }
+    }
+
+    public void testAvatarSplitAcrossBuffers() throws IOException {
+        // Move the matching shout over the end of the first buffer one character at a time,
+        // so the marker and the name are cut at every position once
+        List<String> authors = Collections.singletonList("Own_Name");
+        int length = shout("Own_Name", "Shout number 0").length();
+        for (int shift = 0; shift <= length; shift++) {
+            String page = page(filler(BUFFER_SIZE - PROFILE.length() - shift), authors);
+            assertEquals("shift " + shift, authorsWithPattern(page).get(0), findAuthor(page, "ownname"));
+        }
+    }
+
+    public void testOversizedTagDoesNotEndScan() throws IOException {
+        // A tag past the field limit is passed over, the shout after it is still found
+        StringBuilder oversized = new StringBuilder("<img class=\"comment_useravatar\" data-x=\"");
+        for (int i = 0; i < 10000; i++)
+            oversized.append('x');
+        oversized.append("\" alt=\"someone\" />");
+
+        String page = "<html><body>" + oversized + avatar("Own_Name") + "</body></html>";
+        assertEquals("Own_Name", findAuthor(page, "ownname"));
+    }
+}